@@ -0,0 +1,90 @@
+package com.tfcautoingots.benchmark;
+
+import com.tfcautoingots.texture.core.ColorMapping;
+import com.tfcautoingots.texture.core.ColorPalette;
+import com.tfcautoingots.texture.core.MetalNames;
+import com.tfcautoingots.texture.core.PixelKernels;
+import com.tfcautoingots.texture.core.PngEncoder;
+import com.tfcautoingots.texture.core.Raster;
+import com.tfcautoingots.texture.core.TemplateModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-batch cost as the number of metals grows, i.e. what a modpack pays at startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MetalBatchBenchmark {
+    private static final String[] PATH_SHAPES = {"%s_ingot", "ingot_%s", "double_%s_ingot", "raw_%s_ingot", "%s_nugget", "%s_block"};
+
+    @Param({"10", "100", "300", "1000"})
+    public int metalCount;
+
+    @Param({"16", "64"})
+    public int size;
+
+    private Raster[] ingots;
+    private ColorMapping[] mappings;
+    private TemplateModel template;
+    private String[] itemPaths;
+
+    @Setup
+    public void setup() {
+        ingots = new Raster[metalCount];
+        mappings = new ColorMapping[metalCount];
+        int[] colors = SyntheticTextures.metalColors(metalCount, 4);
+        for (int i = 0; i < metalCount; i++) {
+            ingots[i] = SyntheticTextures.ingotLike(size, i);
+            mappings[i] = ColorMapping.fromColor(colors[i]);
+        }
+        template = TemplateModel.create(SyntheticTextures.ingotLike(size, -1), new byte[32]);
+
+        // A mix of ingots and other items, as seen when scanning a registry
+        itemPaths = new String[metalCount * PATH_SHAPES.length];
+        for (int i = 0; i < metalCount; i++) {
+            for (int shape = 0; shape < PATH_SHAPES.length; shape++) {
+                itemPaths[i * PATH_SHAPES.length + shape] = String.format(PATH_SHAPES[shape], "metal" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public void extractAverageColors(Blackhole blackhole) {
+        for (Raster ingot : ingots) {
+            blackhole.consume(PixelKernels.averageColor(ingot.getPixels()));
+        }
+    }
+
+    @Benchmark
+    public void extractPalettes(Blackhole blackhole) {
+        for (Raster ingot : ingots) {
+            blackhole.consume(ColorPalette.analyze(ingot.getPixels()));
+        }
+    }
+
+    @Benchmark
+    public void recolorAndEncode(Blackhole blackhole) {
+        for (ColorMapping mapping : mappings) {
+            blackhole.consume(PngEncoder.encode(template.recolor(mapping)));
+        }
+    }
+
+    @Benchmark
+    public void extractMetalNames(Blackhole blackhole) {
+        for (String path : itemPaths) {
+            blackhole.consume(MetalNames.fromItemPath(path));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.tfcautoingots.benchmark;
+
+import com.tfcautoingots.texture.core.ColorMapping;
+import com.tfcautoingots.texture.core.ColorPalette;
+import com.tfcautoingots.texture.core.PixelKernels;
+import com.tfcautoingots.texture.core.PngEncoder;
+import com.tfcautoingots.texture.core.Raster;
+import com.tfcautoingots.texture.core.TemplateModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-texture cost of the pixel pipeline at common texture pack resolutions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PixelPipelineBenchmark {
+    @Param({"16", "32", "64", "128"})
+    public int size;
+
+    private Raster ingot;
+    private TemplateModel template;
+    private ColorMapping mapping;
+    private ColorMapping gradientMapping;
+    private Raster recolored;
+
+    @Setup
+    public void setup() {
+        ingot = SyntheticTextures.ingotLike(size, 1);
+        template = TemplateModel.create(SyntheticTextures.ingotLike(size, 2), new byte[32]);
+        mapping = ColorMapping.fromColor(SyntheticTextures.metalColors(1, 3)[0]);
+        gradientMapping = ColorMapping.fromGradient(ingot.getPixels());
+        recolored = template.recolor(mapping);
+    }
+
+    @Benchmark
+    public int extractAverageColor() {
+        return PixelKernels.averageColor(ingot.getPixels());
+    }
+
+    @Benchmark
+    public ColorPalette extractPalette() {
+        return ColorPalette.analyze(ingot.getPixels());
+    }
+
+    @Benchmark
+    public Raster applyRecoloring() {
+        return template.recolor(mapping);
+    }
+
+    @Benchmark
+    public ColorMapping buildGradient() {
+        return ColorMapping.fromGradient(ingot.getPixels());
+    }
+
+    @Benchmark
+    public Raster applyGradientRecoloring() {
+        return template.recolor(gradientMapping);
+    }
+
+    @Benchmark
+    public byte[] encodePng() {
+        return PngEncoder.encode(recolored);
+    }
+
+    @Benchmark
+    public void buildTemplateModel(Blackhole blackhole) {
+        blackhole.consume(TemplateModel.create(ingot, new byte[32]));
+    }
+}
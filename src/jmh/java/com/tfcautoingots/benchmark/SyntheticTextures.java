@@ -0,0 +1,42 @@
+package com.tfcautoingots.benchmark;
+
+import com.tfcautoingots.texture.core.Raster;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic inputs for the benchmarks.
+ */
+final class SyntheticTextures {
+    private SyntheticTextures() {}
+
+    /**
+     * A square raster of random metallic grays with a transparent border, like an ingot texture.
+     */
+    static Raster ingotLike(int size, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[size * size];
+        int border = Math.max(1, size / 8);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean edge = x < border || y < border || x >= size - border || y >= size - border;
+                int gray = 96 + random.nextInt(128);
+                int alpha = edge ? random.nextInt(128) : 255;
+                pixels[y * size + x] = (alpha << 24) | (gray << 16) | (gray << 8) | gray;
+            }
+        }
+        return new Raster(size, size, pixels);
+    }
+
+    /**
+     * Random opaque ARGB colors, one per metal.
+     */
+    static int[] metalColors(int count, long seed) {
+        Random random = new Random(seed);
+        int[] colors = new int[count];
+        for (int i = 0; i < count; i++) {
+            colors[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return colors;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tfcautoingots;
+
+import com.tfcautoingots.texture.core.RecolorMode;
+
+import net.neoforged.neoforge.common.ModConfigSpec;
+
+/**
+ * Client configuration for texture generation.
+ */
+public class Config {
+    private static final ModConfigSpec.Builder BUILDER = new ModConfigSpec.Builder();
+
+    public static final ModConfigSpec.BooleanValue COMPACT_MODE = BUILDER
+        .comment("Store only each metal's color and render textures when the game loads them.",
+                 "Uses a few bytes per metal instead of a full texture, at the cost of rendering on every resource reload.")
+        .define("compactMode", false);
+
+    public static final ModConfigSpec.IntValue COMPACT_CACHE_SIZE = BUILDER
+        .comment("Number of recently rendered textures kept in memory when compact mode is enabled.")
+        .defineInRange("compactCacheSize", 32, 1, 4096);
+
+    public static final ModConfigSpec.IntValue ON_DEMAND_PER_TICK = BUILDER
+        .comment("Maximum number of on-demand texture requests started per client tick.",
+                 "Each start reads the ingot texture on the main thread; decoding and recoloring happen in the background.")
+        .defineInRange("onDemandPerTick", 2, 1, 64);
+
+    public static final ModConfigSpec.EnumValue<RecolorMode> RECOLOR_MODE = BUILDER
+        .comment("How generated textures take their colors from the ingot texture.",
+                 "FLAT tints the template with the ingot's dominant color. GRADIENT maps the template's dark, mid and light tones",
+                 "to the ingot's own shadow and highlight colors, which keeps multi-tone ingot art closer to the original.")
+        .defineEnum("recolorMode", RecolorMode.FLAT);
+
+    static final ModConfigSpec SPEC = BUILDER.build();
+}
@@ -7,6 +7,7 @@ import com.mojang.logging.LogUtils;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
+import net.neoforged.fml.config.ModConfig;
 
 @Mod(TFCAutoIngots.MODID)
 public class TFCAutoIngots {
@@ -14,6 +15,7 @@ public class TFCAutoIngots {
     private static final Logger LOGGER = LogUtils.getLogger();
 
     public TFCAutoIngots(IEventBus modEventBus, ModContainer modContainer) {
+        modContainer.registerConfig(ModConfig.Type.CLIENT, Config.SPEC);
         LOGGER.info("TFC AutoIngots initialized! Generating textures for ingots from any mod.");
     }
 
@@ -0,0 +1,63 @@
+package com.tfcautoingots.client;
+
+import com.tfcautoingots.TFCAutoIngots;
+import com.tfcautoingots.metrics.PipelineMetrics;
+import com.tfcautoingots.texture.NativeMemory;
+
+import com.mojang.brigadier.Command;
+
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.neoforged.api.distmarker.Dist;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.client.event.RegisterClientCommandsEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client command dumping the pipeline metrics, for profiling a modpack without attaching a profiler.
+ * {@code /tfcautoingots stats} prints the current snapshot to chat and the log, {@code /tfcautoingots stats reset}
+ * clears it, e.g. before pressing F3+T to measure a single reload.
+ */
+@EventBusSubscriber(modid = TFCAutoIngots.MODID, bus = EventBusSubscriber.Bus.GAME, value = Dist.CLIENT)
+public class DebugCommand {
+    @SubscribeEvent
+    public static void onRegisterClientCommands(RegisterClientCommandsEvent event) {
+        event.getDispatcher().register(Commands.literal(TFCAutoIngots.MODID)
+            .then(Commands.literal("stats")
+                .executes(context -> dump(context.getSource()))
+                .then(Commands.literal("reset")
+                    .executes(context -> reset(context.getSource())))));
+    }
+
+    private static int dump(CommandSourceStack source) {
+        for (String line : describe()) {
+            TFCAutoIngots.getLogger().info("Pipeline metrics: {}", line);
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int reset(CommandSourceStack source) {
+        PipelineMetrics.reset();
+        source.sendSuccess(() -> Component.literal("TFC AutoIngots metrics reset"), false);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    /**
+     * Registry and memory state followed by the stage timers and counters.
+     */
+    private static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Textures: %d for %d metals, %d queued on demand", DynamicIngotTexturePack.getTextureCount(),
+            DynamicIngotTexturePack.getRegisteredMetals().size(), GenerationQueue.getPendingCount()));
+        lines.add(String.format("Memory: %d KB on heap, %d KB mapped archive, %d KB native (peak %d KB)",
+            DynamicIngotTexturePack.getHeldBytes() / 1024, TextureArchive.getMappedBytes() / 1024,
+            NativeMemory.getBytesHeld() / 1024, NativeMemory.getPeakBytes() / 1024));
+        lines.addAll(PipelineMetrics.describe());
+        return lines;
+    }
+}
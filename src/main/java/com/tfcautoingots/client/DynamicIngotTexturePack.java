@@ -1,7 +1,9 @@
 package com.tfcautoingots.client;
 
-import com.mojang.blaze3d.platform.NativeImage;
 import com.tfcautoingots.TFCAutoIngots;
+import com.tfcautoingots.metrics.PipelineMetrics;
+import com.tfcautoingots.texture.TextureVariant;
+import com.tfcautoingots.util.ByteBufferInputStream;
 import com.tfcautoingots.util.Constants;
 
 import net.minecraft.network.chat.Component;
@@ -10,49 +12,241 @@ import net.minecraft.server.packs.PackLocationInfo;
 import net.minecraft.server.packs.PackType;
 import net.minecraft.server.packs.metadata.MetadataSectionSerializer;
 import net.minecraft.server.packs.repository.Pack;
-import net.minecraft.server.packs.repository.PackSource;
 import net.minecraft.server.packs.resources.IoSupplier;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Dynamic resource pack that provides generated ingot textures at runtime.
- * Textures are stored in memory and served on-demand.
+ * Textures are held as encoded PNG bytes, either on the heap or mapped from the {@link TextureArchive}, and served on-demand
+ * without re-encoding or copying.
+ * The registry is an immutable snapshot replaced atomically on every publish, so reload worker
+ * threads can list and read textures without locks while new metals are being registered.
+ * Listings from a pack opened for a resource reload wait for that reload's generation, see {@link IngotTextureReloadListener},
+ * except listings made by the generation itself. The wait is bounded, so a generation that never finishes can't hang the reload.
  */
 public class DynamicIngotTexturePack implements net.minecraft.server.packs.PackResources {
-    private static final Map<String, NativeImage> TEXTURE_CACHE = new HashMap<>();
-    private static final String PACK_NAME = "TFC AutoIngots Generated";
+    /** Texture path in the TFC namespace -> texture, sorted so directory listings are a range of the index */
+    private static final AtomicReference<NavigableMap<String, TextureEntry>> TEXTURES = new AtomicReference<>(Collections.emptyNavigableMap());
+    /** Metals with every variant registered or provided by another resource pack, so requests for them are a single probe */
+    private static final Set<String> COVERED_METALS = ConcurrentHashMap.newKeySet();
+    /** Generation for the reload that most recently opened the pack */
+    private static final AtomicReference<CompletableFuture<Void>> PENDING_GENERATION = new AtomicReference<>(CompletableFuture.completedFuture(null));
+    /** Set on the thread running a reload's generation, whose own listings must not wait for it */
+    private static final ThreadLocal<Boolean> GENERATING = ThreadLocal.withInitial(() -> false);
+    private static final long GENERATION_TIMEOUT_SECONDS = 60;
     private final PackLocationInfo locationInfo;
+    private final CompletableFuture<Void> generation;
 
     public DynamicIngotTexturePack(PackLocationInfo locationInfo) {
+        this(locationInfo, CompletableFuture.completedFuture(null));
+    }
+
+    private DynamicIngotTexturePack(PackLocationInfo locationInfo, CompletableFuture<Void> generation) {
         this.locationInfo = locationInfo;
+        this.generation = generation;
+    }
+
+    /**
+     * Register several generated textures, publishing them to readers in a single atomic update.
+     *
+     * @param textures Texture path (e.g., "textures/block/metal/smooth/lead.png") -> texture to serve, see {@link TextureVariant#getPath}
+     */
+    public static void registerTextures(Map<String, TextureEntry> textures) {
+        updateTextures(textures, Set.of());
+    }
+
+    /**
+     * Register and remove textures in a single atomic update.
+     *
+     * @param textures Texture path -> texture to serve, replacing any existing texture
+     * @param removed Texture paths that should no longer be served
+     */
+    public static void updateTextures(Map<String, TextureEntry> textures, Collection<String> removed) {
+        if (textures.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        TEXTURES.updateAndGet(current -> {
+            NavigableMap<String, TextureEntry> next = new TreeMap<>(current);
+            next.keySet().removeAll(removed);
+            next.putAll(textures);
+            return Collections.unmodifiableNavigableMap(next);
+        });
+        // Generation registers all variants of a metal it renders at once
+        for (String path : textures.keySet()) {
+            String metalName = getMetalName(path);
+            if (metalName != null) {
+                COVERED_METALS.add(metalName);
+            }
+        }
+    }
+
+    /**
+     * Stop serving every texture, so the next batch generates all of them again, e.g. to measure generation from a cold start.
+     */
+    public static void clearTextures() {
+        TEXTURES.set(Collections.emptyNavigableMap());
+        COVERED_METALS.clear();
+    }
+
+    /**
+     * Write the registered textures to a new {@link TextureArchive} if they changed, and serve them from its mapping
+     * instead of the heap. Textures replaced since the snapshot was taken are left alone.
+     */
+    static void persistTextures() {
+        Map<String, TextureEntry> archived = TextureArchive.store(TEXTURES.get());
+        if (archived.isEmpty()) {
+            return;
+        }
+
+        TEXTURES.updateAndGet(current -> {
+            NavigableMap<String, TextureEntry> next = new TreeMap<>(current);
+            for (Map.Entry<String, TextureEntry> entry : archived.entrySet()) {
+                TextureEntry existing = next.get(entry.getKey());
+                if (existing != null && !existing.isCompact() && existing.getFingerprint().equals(entry.getValue().getFingerprint())) {
+                    next.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return Collections.unmodifiableNavigableMap(next);
+        });
+    }
+
+    /**
+     * The generation readers of the most recently opened pack are waiting for.
+     * The reload listener completes it once its textures are registered.
+     */
+    static CompletableFuture<Void> getPendingGeneration() {
+        return PENDING_GENERATION.get();
+    }
+
+    /**
+     * Run a reload's texture generation on the current thread, then release the listings waiting for it.
+     * Listings the generation makes itself, such as prefetching source textures through the reload's resource manager,
+     * answer from the current registry instead of waiting for their own thread.
+     * The pending generation is completed however the task ends; failures are logged, not rethrown, so the reload goes on
+     * with the textures registered so far.
+     *
+     * @param generation The pending generation to complete, see {@link #getPendingGeneration()}
+     */
+    static void runGeneration(CompletableFuture<Void> generation, Runnable task) {
+        GENERATING.set(true);
+        try {
+            task.run();
+        } catch (Throwable e) {
+            TFCAutoIngots.getLogger().error("Texture generation failed: {}", e.getMessage(), e);
+        } finally {
+            GENERATING.remove();
+            generation.complete(null);
+        }
+    }
+
+    /**
+     * Start a new pending generation for a pack opened by a resource reload.
+     */
+    private static CompletableFuture<Void> beginGeneration() {
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        // A newer reload supersedes one still in progress, so release anyone waiting on the old one
+        PENDING_GENERATION.getAndSet(generation).complete(null);
+        return generation;
+    }
+
+    /**
+     * Check if a metal needs no generation: every variant of it is registered or provided by another resource pack.
+     */
+    public static boolean isCovered(String metalName) {
+        return COVERED_METALS.contains(metalName);
+    }
+
+    /**
+     * Record that a metal's variants are all provided by other resource packs, see {@link #isCovered}.
+     */
+    public static void markCovered(String metalName) {
+        COVERED_METALS.add(metalName);
+    }
+
+    /**
+     * Forget which metals other resource packs cover, keeping those with registered textures. Called when packs change.
+     */
+    static void resetCoveredMetals() {
+        COVERED_METALS.clear();
+        for (String path : TEXTURES.get().keySet()) {
+            String metalName = getMetalName(path);
+            if (metalName != null) {
+                COVERED_METALS.add(metalName);
+            }
+        }
     }
 
     /**
-     * Register a generated texture in the cache.
+     * Metal a registered texture path belongs to, see {@link TextureVariant#getPath}.
+     *
+     * @return The metal name, or null if the path is not a variant's texture
      */
-    public static void registerTexture(String metalName, NativeImage texture) {
-        TEXTURE_CACHE.put(metalName, texture);
+    private static String getMetalName(String path) {
+        for (TextureVariant variant : TextureVariant.ALL) {
+            if (path.startsWith(variant.getPathPrefix()) && path.endsWith(".png")) {
+                return path.substring(variant.getPathPrefix().length(), path.length() - ".png".length());
+            }
+        }
+        return null;
     }
 
     /**
-     * Check if a texture exists in the cache.
+     * Get the texture currently registered at a path.
+     *
+     * @return The entry, or null if there is none
      */
-    public static boolean hasTexture(String metalName) {
-        return TEXTURE_CACHE.containsKey(metalName);
+    public static TextureEntry getTexture(String path) {
+        return TEXTURES.get().get(path);
     }
 
     /**
-     * Get all registered metal names.
+     * Get all metal names with a registered primary texture as of now. The returned set does not change.
      */
     public static Set<String> getRegisteredMetals() {
-        return TEXTURE_CACHE.keySet();
+        String prefix = TextureVariant.SMOOTH.getPathPrefix();
+        Set<String> metals = new TreeSet<>();
+        for (String path : directory(TEXTURES.get(), prefix).keySet()) {
+            metals.add(path.substring(prefix.length(), path.length() - ".png".length()));
+        }
+        return Collections.unmodifiableSet(metals);
+    }
+
+    /**
+     * Number of registered textures across all variants.
+     */
+    public static int getTextureCount() {
+        return TEXTURES.get().size();
+    }
+
+    /**
+     * Total size of the textures currently held on the heap, including recently rendered compact textures.
+     * Textures shared between metals are counted once.
+     */
+    public static long getHeldBytes() {
+        long total = TextureEntry.getRecentlyRenderedBytes();
+        Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TextureEntry texture : TEXTURES.get().values()) {
+            total += texture.getHeldBytes(counted);
+        }
+        return total;
     }
 
     @Override
@@ -68,22 +262,9 @@ public class DynamicIngotTexturePack implements net.minecraft.server.packs.PackR
 
         // Check if this is a texture we generated
         if (Constants.TFC_NAMESPACE.equals(location.getNamespace())) {
-            String path = location.getPath();
-            if (path.startsWith(Constants.TEXTURE_PATH_PREFIX) && path.endsWith(".png")) {
-                String metalName = path.substring(Constants.TEXTURE_PATH_PREFIX.length(), path.length() - 4);
-                
-                NativeImage texture = TEXTURE_CACHE.get(metalName);
-                if (texture != null) {
-                    return () -> {
-                        try {
-                            byte[] imageData = texture.asByteArray();
-                            return new ByteArrayInputStream(imageData);
-                        } catch (IOException e) {
-                            TFCAutoIngots.getLogger().error("Failed to convert texture to bytes for {}: {}", metalName, e.getMessage());
-                            return null;
-                        }
-                    };
-                }
+            TextureEntry texture = TEXTURES.get().get(location.getPath());
+            if (texture != null) {
+                return openTexture(texture);
             }
         }
 
@@ -96,21 +277,72 @@ public class DynamicIngotTexturePack implements net.minecraft.server.packs.PackR
             return;
         }
 
-        String textureDir = Constants.TEXTURE_PATH_PREFIX.substring(0, Constants.TEXTURE_PATH_PREFIX.length() - 1);
-        if (path.equals(textureDir)) {
-            for (String metalName : TEXTURE_CACHE.keySet()) {
-                ResourceLocation location = ResourceLocation.fromNamespaceAndPath(
-                    Constants.TFC_NAMESPACE,
-                    Constants.TEXTURE_PATH_PREFIX + metalName + ".png"
-                );
-                IoSupplier<InputStream> supplier = getResource(type, location);
-                if (supplier != null) {
-                    output.accept(location, supplier);
+        // Atlases list whole directory trees such as textures/block, so answer for any parent of a variant's directory
+        String directory = path.endsWith("/") ? path : path + "/";
+        for (TextureVariant variant : TextureVariant.ALL) {
+            if (variant.getPathPrefix().startsWith(directory)) {
+                try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.LIST)) {
+                    awaitGeneration();
+
+                    // List and serve from one snapshot so concurrent registrations can't tear the result
+                    for (Map.Entry<String, TextureEntry> entry : directory(TEXTURES.get(), directory).entrySet()) {
+                        ResourceLocation location = ResourceLocation.fromNamespaceAndPath(Constants.TFC_NAMESPACE, entry.getKey());
+                        output.accept(location, openTexture(entry.getValue()));
+                    }
                 }
+                return;
             }
         }
     }
 
+    /**
+     * Textures of a snapshot under the given directory, which must end with a slash.
+     */
+    private static SortedMap<String, TextureEntry> directory(NavigableMap<String, TextureEntry> snapshot, String directory) {
+        // '0' is the character after '/', so this range holds exactly the paths starting with the directory
+        return snapshot.subMap(directory, directory.substring(0, directory.length() - 1) + '0');
+    }
+
+    /**
+     * Wait until textures for the reload that opened this pack are registered.
+     * Atlases list textures while the reload listener is still generating, so listings must not run ahead of it.
+     * The generating thread itself never waits, see {@link #runGeneration}. Others give up after a timeout and list
+     * the textures registered so far.
+     */
+    private void awaitGeneration() {
+        if (GENERATING.get()) {
+            return;
+        }
+
+        try {
+            generation.get(GENERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            TFCAutoIngots.getLogger().warn("Texture generation did not finish within {} seconds, listing the {} textures available so far",
+                GENERATION_TIMEOUT_SECONDS, TEXTURES.get().size());
+            // Stop waiting for this generation everywhere, so the reload's other listings don't each time out again
+            generation.complete(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Generation failures are logged by the reload listener
+        }
+    }
+
+    /**
+     * Create a supplier reading the given texture. Compact textures are only rendered once the supplier is opened,
+     * and every opened stream reads its own view of the shared bytes.
+     */
+    private static IoSupplier<InputStream> openTexture(TextureEntry texture) {
+        return () -> {
+            try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.SERVE)) {
+                ByteBuffer bytes = texture.getBytes().duplicate();
+                PipelineMetrics.Counter.TEXTURES_SERVED.increment();
+                PipelineMetrics.Counter.BYTES_SERVED.add(bytes.remaining());
+                return new ByteBufferInputStream(bytes);
+            }
+        };
+    }
+
     @Override
     public Set<String> getNamespaces(PackType type) {
         if (type == PackType.CLIENT_RESOURCES) {
@@ -139,29 +371,23 @@ public class DynamicIngotTexturePack implements net.minecraft.server.packs.PackR
 
     @Override
     public void close() {
-        // Textures are managed externally, don't close them here
+        // Textures are shared heap buffers owned by the registry, nothing native to free here
     }
 
     /**
      * Create a Pack.ResourcesSupplier for registration.
      */
     public static Pack.ResourcesSupplier createResourcesSupplier() {
-        PackLocationInfo locationInfo = new PackLocationInfo(
-            PACK_NAME,
-            Component.literal(PACK_NAME),
-            PackSource.BUILT_IN,
-            Optional.empty()
-        );
-        
         return new Pack.ResourcesSupplier() {
             @Override
             public net.minecraft.server.packs.PackResources openPrimary(PackLocationInfo location) {
-                return new DynamicIngotTexturePack(locationInfo);
+                return new DynamicIngotTexturePack(location);
             }
 
             @Override
             public net.minecraft.server.packs.PackResources openFull(PackLocationInfo location, Pack.Metadata metadata) {
-                return new DynamicIngotTexturePack(locationInfo);
+                // Opened when a reload builds its resource manager, before any reload listener runs
+                return new DynamicIngotTexturePack(location, beginGeneration());
             }
         };
     }
@@ -0,0 +1,127 @@
+package com.tfcautoingots.client;
+
+import com.tfcautoingots.Config;
+import com.tfcautoingots.TFCAutoIngots;
+import com.tfcautoingots.texture.IngotTextureGenerator;
+import com.tfcautoingots.texture.TextureVariant;
+import com.tfcautoingots.texture.core.TemplateModel;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.world.item.Item;
+import net.neoforged.api.distmarker.Dist;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.client.event.ClientTickEvent;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Queue for on-demand texture generation outside the startup batch.
+ * Requests are deduplicated by metal and started at the end of client ticks, a configurable number per tick.
+ * Starting a request only reads the ingot texture; decoding and recoloring run on a background worker and the
+ * result is published to the {@link DynamicIngotTexturePack} when done, so callers never wait on image work.
+ */
+@EventBusSubscriber(modid = TFCAutoIngots.MODID, bus = EventBusSubscriber.Bus.GAME, value = Dist.CLIENT)
+public class GenerationQueue {
+    private static final Queue<String> QUEUED = new ConcurrentLinkedQueue<>();
+    /** Queued or in-flight metals and their ingot items */
+    private static final Map<String, Item> PENDING = new ConcurrentHashMap<>();
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TFCAutoIngots Generation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Request a texture for the given metal. Returns immediately; does nothing if the metal is covered or already pending.
+     *
+     * @param metalName The name of the metal (e.g., "lead")
+     * @param ingotItem The ingot item to extract color from
+     */
+    public static void request(String metalName, Item ingotItem) {
+        if (DynamicIngotTexturePack.isCovered(metalName)) {
+            return;
+        }
+        if (PENDING.putIfAbsent(metalName, ingotItem) == null) {
+            QUEUED.add(metalName);
+        }
+    }
+
+    /**
+     * Number of requests queued or in flight.
+     */
+    public static int getPendingCount() {
+        return PENDING.size();
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(ClientTickEvent.Post event) {
+        int budget = Config.ON_DEMAND_PER_TICK.get();
+        for (int started = 0; started < budget; started++) {
+            String metalName = QUEUED.poll();
+            if (metalName == null) {
+                return;
+            }
+            start(metalName, PENDING.get(metalName));
+        }
+    }
+
+    /**
+     * Read a request's inputs on the main thread and hand it to the worker.
+     */
+    private static void start(String metalName, Item ingotItem) {
+        if (DynamicIngotTexturePack.isCovered(metalName)) {
+            PENDING.remove(metalName);
+            return;
+        }
+
+        // Metals already being generated elsewhere are published by their owner, no need to wait here
+        IngotTextureGenerator.Flight flight = IngotTextureGenerator.beginFlight(metalName);
+        if (!flight.isOwner()) {
+            PENDING.remove(metalName);
+            return;
+        }
+
+        try {
+            ResourceManager resourceManager = Minecraft.getInstance().getResourceManager();
+            Map<TextureVariant, TemplateModel> templates = IngotTextureGenerator.getVariantsToGenerate(
+                resourceManager, metalName, IngotTextureGenerator.getTemplateModels(resourceManager), false);
+            if (templates.isEmpty()) {
+                DynamicIngotTexturePack.markCovered(metalName);
+                flight.complete(true);
+                PENDING.remove(metalName);
+                return;
+            }
+
+            IngotTextureGenerator.GenerationInput input = IngotTextureGenerator.prepareInput(resourceManager, metalName, ingotItem, templates);
+            WORKER.execute(() -> render(input, flight));
+        } catch (Exception e) {
+            flight.complete(false);
+            PENDING.remove(metalName);
+            TFCAutoIngots.getLogger().error("Failed to generate texture for '{}': {}", metalName, e.getMessage());
+        }
+    }
+
+    /**
+     * Render and publish a texture on the worker thread.
+     */
+    private static void render(IngotTextureGenerator.GenerationInput input, IngotTextureGenerator.Flight flight) {
+        boolean success = false;
+        try {
+            DynamicIngotTexturePack.registerTextures(IngotTextureGenerator.generateEntries(input));
+            success = true;
+            TFCAutoIngots.getLogger().debug("Generated texture for '{}' on demand", input.getMetalName());
+        } catch (Exception e) {
+            TFCAutoIngots.getLogger().error("Failed to generate texture for '{}': {}", input.getMetalName(), e.getMessage());
+        } finally {
+            flight.complete(success);
+            PENDING.remove(input.getMetalName());
+        }
+    }
+}
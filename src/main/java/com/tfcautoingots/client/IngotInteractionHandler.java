@@ -1,7 +1,6 @@
 package com.tfcautoingots.client;
 
 import com.tfcautoingots.TFCAutoIngots;
-import com.tfcautoingots.texture.IngotTextureGenerator;
 import com.tfcautoingots.util.TagExtractor;
 
 import net.minecraft.world.item.ItemStack;
@@ -12,7 +11,7 @@ import net.neoforged.neoforge.event.entity.player.PlayerInteractEvent;
 
 /**
  * Handles on-demand texture generation when player interacts with ingots.
- * This ensures textures exist before TFC tries to render them.
+ * Missing textures are queued on the {@link GenerationQueue}, so interaction never waits on image work.
  */
 @EventBusSubscriber(modid = TFCAutoIngots.MODID, bus = EventBusSubscriber.Bus.GAME, value = Dist.CLIENT)
 public class IngotInteractionHandler {
@@ -23,7 +22,7 @@ public class IngotInteractionHandler {
             if (!stack.isEmpty()) {
                 String metalName = TagExtractor.getMetalName(stack.getItem());
                 if (metalName != null && !metalName.isEmpty()) {
-                    IngotTextureGenerator.generateTexture(metalName, stack.getItem());
+                    GenerationQueue.request(metalName, stack.getItem());
                 }
             }
         }
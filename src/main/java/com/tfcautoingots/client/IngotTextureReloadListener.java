@@ -0,0 +1,42 @@
+package com.tfcautoingots.client;
+
+import net.minecraft.server.packs.resources.PreparableReloadListener;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.util.profiling.ProfilerFiller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Regenerates all textures on every resource reload, so ingot art or templates swapped by resource packs are picked up.
+ * Generation runs during the preparation stage alongside vanilla's loading. The resulting textures are published to the
+ * {@link DynamicIngotTexturePack} in one atomic update, which releases atlases waiting to list them.
+ */
+public class IngotTextureReloadListener implements PreparableReloadListener {
+    /**
+     * Generation runs on its own thread rather than the shared background executor, whose workers may be blocked
+     * waiting for it inside {@link DynamicIngotTexturePack#listResources}.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TFCAutoIngots Reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public CompletableFuture<Void> reload(PreparationBarrier barrier, ResourceManager resourceManager,
+                                          ProfilerFiller preparationsProfiler, ProfilerFiller reloadProfiler,
+                                          Executor backgroundExecutor, Executor gameExecutor) {
+        CompletableFuture<Void> generation = DynamicIngotTexturePack.getPendingGeneration();
+        return CompletableFuture.runAsync(() -> DynamicIngotTexturePack.runGeneration(generation,
+                () -> TextureGenerationHandler.generateAllTextures(resourceManager)), EXECUTOR)
+            .thenCompose(barrier::wait);
+    }
+
+    @Override
+    public String getName() {
+        return "TFCAutoIngots textures";
+    }
+}
@@ -0,0 +1,298 @@
+package com.tfcautoingots.client;
+
+import com.tfcautoingots.TFCAutoIngots;
+import com.tfcautoingots.metrics.PipelineMetrics;
+import com.tfcautoingots.util.ByteBufferInputStream;
+import com.tfcautoingots.util.Constants;
+
+import net.neoforged.fml.loading.FMLPaths;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Single packed file holding every generated texture, memory-mapped to back {@link DynamicIngotTexturePack}.
+ * The file starts with an index sorted by texture path, giving each texture's fingerprint and the location of its PNG,
+ * followed by the concatenated PNGs. Textures shared between metals are stored once.
+ * Served textures are read-only slices of the mapping, so warm starts cost one map instead of a read per texture
+ * and the bytes stay off the Java heap.
+ * <p>
+ * Every write creates a new file because a mapped file can't be replaced on all platforms; older files are deleted
+ * the next time the archive is opened.
+ */
+public final class TextureArchive {
+    private static final int MAGIC = 0x54464341; // "TFCA"
+    private static final int FORMAT_VERSION = 1;
+    private static final String PREFIX = "textures-";
+    private static final String EXTENSION = ".bin";
+    private static volatile TextureArchive current;
+    /** Directory holding the archive files, or null for the cache directory under the game directory */
+    private static volatile Path directoryOverride;
+
+    /** Mapped file, or null for the empty archive used when none exists */
+    private final Path file;
+    /** Texture path -> stored texture */
+    private final NavigableMap<String, Stored> entries;
+    private final long mappedBytes;
+
+    private TextureArchive(Path file, NavigableMap<String, Stored> entries, long mappedBytes) {
+        this.file = file;
+        this.entries = entries;
+        this.mappedBytes = mappedBytes;
+    }
+
+    /**
+     * Find an archived texture generated from the given inputs, mapping the newest archive on first use.
+     *
+     * @param path Texture path, see {@link com.tfcautoingots.texture.TextureVariant#getPath}
+     * @param fingerprint Hash of the texture's inputs
+     * @return An entry serving the archived bytes, or null if the archive has no texture for these inputs
+     */
+    public static TextureEntry lookup(String path, String fingerprint) {
+        Stored stored = getCurrent().entries.get(path);
+        if (stored == null || !stored.fingerprint.equals(fingerprint)) {
+            return null;
+        }
+        return TextureEntry.mapped(stored.bytes, fingerprint);
+    }
+
+    /**
+     * Write all encoded textures of the given snapshot to a new archive and map it.
+     * Nothing is written when the archive already holds exactly these textures, or when all of them are compact.
+     *
+     * @return Entries of the snapshot now served from the new mapping, to replace their heap copies; empty if nothing was written
+     */
+    static Map<String, TextureEntry> store(NavigableMap<String, TextureEntry> snapshot) {
+        NavigableMap<String, TextureEntry> encoded = new TreeMap<>();
+        for (Map.Entry<String, TextureEntry> entry : snapshot.entrySet()) {
+            if (!entry.getValue().isCompact()) {
+                encoded.put(entry.getKey(), entry.getValue());
+            }
+        }
+        TextureArchive previous = getCurrent();
+        if (encoded.isEmpty() || matches(previous, encoded)) {
+            return Map.of();
+        }
+
+        Path directory = getDirectory();
+        Path file = directory.resolve(PREFIX + System.currentTimeMillis() + EXTENSION);
+        try {
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, PREFIX, ".tmp");
+            try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.ARCHIVE_WRITE);
+                 OutputStream output = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                writeArchive(output, encoded);
+            }
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+
+            TextureArchive archive = map(file);
+            current = archive;
+            if (previous.file != null) {
+                // Fails while the old mapping is still open on some platforms; it is then deleted on the next start
+                try {
+                    Files.deleteIfExists(previous.file);
+                } catch (IOException ignored) {
+                }
+            }
+
+            Map<String, TextureEntry> remapped = new TreeMap<>();
+            for (Map.Entry<String, Stored> entry : archive.entries.entrySet()) {
+                remapped.put(entry.getKey(), TextureEntry.mapped(entry.getValue().bytes, entry.getValue().fingerprint));
+            }
+            TFCAutoIngots.getLogger().debug("Wrote {} textures to {}", remapped.size(), file);
+            return remapped;
+        } catch (IOException e) {
+            TFCAutoIngots.getLogger().debug("Failed to write texture archive {}: {}", file, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Keep archives in the given directory instead of the game's cache directory, for running the pipeline outside the game.
+     * The newest archive in it is opened on next use.
+     */
+    public static synchronized void useDirectory(Path directory) {
+        directoryOverride = directory;
+        current = null;
+    }
+
+    /**
+     * Size of the currently mapped archive. The mapping lives outside the Java heap.
+     */
+    public static long getMappedBytes() {
+        TextureArchive archive = current;
+        return archive != null ? archive.mappedBytes : 0;
+    }
+
+    private static TextureArchive getCurrent() {
+        TextureArchive archive = current;
+        if (archive == null) {
+            synchronized (TextureArchive.class) {
+                archive = current;
+                if (archive == null) {
+                    archive = openNewest();
+                    current = archive;
+                }
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Map the newest readable archive and delete all others, including files of the older one-file-per-texture cache.
+     */
+    private static TextureArchive openNewest() {
+        Path directory = getDirectory();
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                stream.forEach(files::add);
+            } catch (IOException e) {
+                TFCAutoIngots.getLogger().debug("Failed to list texture archives: {}", e.getMessage());
+            }
+        }
+        files.sort(Collections.reverseOrder());
+
+        TextureArchive archive = null;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (archive == null && name.startsWith(PREFIX) && name.endsWith(EXTENSION)) {
+                try {
+                    archive = map(file);
+                    continue;
+                } catch (IOException | RuntimeException e) {
+                    TFCAutoIngots.getLogger().debug("Discarding unreadable texture archive {}: {}", file, e.getMessage());
+                }
+            }
+
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                TFCAutoIngots.getLogger().debug("Failed to delete old texture archive {}: {}", file, e.getMessage());
+            }
+        }
+        return archive != null ? archive : new TextureArchive(null, Collections.emptyNavigableMap(), 0);
+    }
+
+    private static TextureArchive map(Path file) throws IOException {
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.ARCHIVE_MAP)) {
+            return mapIndexed(file);
+        }
+    }
+
+    private static TextureArchive mapIndexed(Path file) throws IOException {
+        ByteBuffer mapping;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asReadOnlyBuffer();
+        }
+
+        DataInputStream index = new DataInputStream(new ByteBufferInputStream(mapping.duplicate()));
+        if (index.readInt() != MAGIC || index.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a texture archive of this version");
+        }
+
+        int count = index.readInt();
+        int dataStart = index.readInt();
+        NavigableMap<String, Stored> entries = new TreeMap<>();
+        Map<Long, ByteBuffer> slices = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            String path = index.readUTF();
+            String fingerprint = index.readUTF();
+            int offset = index.readInt();
+            int length = index.readInt();
+
+            // Entries sharing a blob share one slice
+            ByteBuffer bytes = slices.computeIfAbsent(((long) offset << 32) | length,
+                key -> mapping.slice(dataStart + offset, length).asReadOnlyBuffer());
+            entries.put(path, new Stored(fingerprint, bytes));
+        }
+        return new TextureArchive(file, Collections.unmodifiableNavigableMap(entries), mapping.capacity());
+    }
+
+    private static void writeArchive(OutputStream output, NavigableMap<String, TextureEntry> textures) throws IOException {
+        // Lay out blobs first so the index can point at them; shared textures get one blob
+        Map<Object, int[]> blobs = new IdentityHashMap<>();
+        List<ByteBuffer> data = new ArrayList<>();
+        int dataLength = 0;
+        for (TextureEntry texture : textures.values()) {
+            if (!blobs.containsKey(texture.getStorage())) {
+                ByteBuffer bytes = texture.getBytes().duplicate();
+                blobs.put(texture.getStorage(), new int[] {dataLength, bytes.remaining()});
+                data.add(bytes);
+                dataLength += bytes.remaining();
+            }
+        }
+
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        for (Map.Entry<String, TextureEntry> texture : textures.entrySet()) {
+            int[] blob = blobs.get(texture.getValue().getStorage());
+            index.writeUTF(texture.getKey());
+            index.writeUTF(texture.getValue().getFingerprint());
+            index.writeInt(blob[0]);
+            index.writeInt(blob[1]);
+        }
+
+        DataOutputStream header = new DataOutputStream(output);
+        header.writeInt(MAGIC);
+        header.writeInt(FORMAT_VERSION);
+        header.writeInt(textures.size());
+        header.writeInt(16 + indexBytes.size());
+        indexBytes.writeTo(output);
+        for (ByteBuffer bytes : data) {
+            byte[] chunk = new byte[bytes.remaining()];
+            bytes.get(chunk);
+            output.write(chunk);
+        }
+    }
+
+    /**
+     * Whether an archive already holds exactly the given textures.
+     */
+    private static boolean matches(TextureArchive archive, NavigableMap<String, TextureEntry> textures) {
+        if (archive.entries.size() != textures.size()) {
+            return false;
+        }
+        for (Map.Entry<String, TextureEntry> texture : textures.entrySet()) {
+            Stored stored = archive.entries.get(texture.getKey());
+            if (stored == null || !stored.fingerprint.equals(texture.getValue().getFingerprint())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Path getDirectory() {
+        Path directory = directoryOverride;
+        return directory != null ? directory : FMLPaths.GAMEDIR.get().resolve(Constants.CACHE_DIRECTORY);
+    }
+
+    private static final class Stored {
+        final String fingerprint;
+        final ByteBuffer bytes;
+
+        Stored(String fingerprint, ByteBuffer bytes) {
+            this.fingerprint = fingerprint;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.tfcautoingots.client;
+
+import com.tfcautoingots.Config;
+import com.tfcautoingots.texture.TextureBlobs;
+import com.tfcautoingots.texture.core.ColorMapping;
+import com.tfcautoingots.texture.core.TemplateModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A texture served by {@link DynamicIngotTexturePack}.
+ * Either holds the encoded PNG, serves it from the mapped {@link TextureArchive}, or only holds the metal's color mapping
+ * and renders the PNG when it is opened.
+ */
+public abstract class TextureEntry {
+    /** Recently rendered compact textures, least recently used first. Metals with equal mappings share a slot. */
+    private static final Map<TextureBlobs.RenderKey, ByteBuffer> RECENTLY_RENDERED = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TextureBlobs.RenderKey, ByteBuffer> eldest) {
+            return size() > Config.COMPACT_CACHE_SIZE.get();
+        }
+    };
+
+    private final String fingerprint;
+
+    private TextureEntry(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Create an entry holding an encoded texture.
+     *
+     * @param pngBytes The encoded texture, usually shared through {@link TextureBlobs}. Must not be modified afterwards.
+     * @param fingerprint Hash of the inputs the texture was generated from
+     */
+    public static TextureEntry encoded(byte[] pngBytes, String fingerprint) {
+        return new Encoded(pngBytes, fingerprint);
+    }
+
+    /**
+     * Create an entry serving a slice of the mapped {@link TextureArchive}.
+     */
+    static TextureEntry mapped(ByteBuffer slice, String fingerprint) {
+        return new Mapped(slice, fingerprint);
+    }
+
+    /**
+     * Create an entry that renders its texture from the shared template when opened.
+     *
+     * @param fingerprint Hash of the inputs the mapping was computed from
+     */
+    public static TextureEntry compact(TemplateModel template, ColorMapping mapping, String fingerprint) {
+        return new Compact(template, mapping, fingerprint);
+    }
+
+    /**
+     * Hash of the template and source texture this entry was generated from, see {@link com.tfcautoingots.texture.TextureCache#computeKey}.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Whether the texture is rendered when opened rather than held encoded.
+     */
+    public abstract boolean isCompact();
+
+    /**
+     * Get the encoded PNG as a read-only buffer shared between readers.
+     * Callers must read from a {@link ByteBuffer#duplicate()}.
+     */
+    abstract ByteBuffer getBytes() throws IOException;
+
+    /**
+     * Heap bytes permanently held by this entry, skipping data shared with entries counted before.
+     *
+     * @param counted Identities of the data already counted, updated with this entry's
+     */
+    abstract long getHeldBytes(Set<Object> counted);
+
+    /**
+     * The object holding this entry's data. Entries sharing a texture return the same instance.
+     */
+    abstract Object getStorage();
+
+    /**
+     * Heap bytes held by the recently rendered compact textures.
+     */
+    static long getRecentlyRenderedBytes() {
+        synchronized (RECENTLY_RENDERED) {
+            long total = 0;
+            for (ByteBuffer texture : RECENTLY_RENDERED.values()) {
+                total += texture.capacity();
+            }
+            return total;
+        }
+    }
+
+    private static final class Encoded extends TextureEntry {
+        private final byte[] pngBytes;
+        private final ByteBuffer bytes;
+
+        private Encoded(byte[] pngBytes, String fingerprint) {
+            super(fingerprint);
+            this.pngBytes = pngBytes;
+            this.bytes = ByteBuffer.wrap(pngBytes).asReadOnlyBuffer();
+        }
+
+        @Override
+        public boolean isCompact() {
+            return false;
+        }
+
+        @Override
+        ByteBuffer getBytes() {
+            return bytes;
+        }
+
+        @Override
+        long getHeldBytes(Set<Object> counted) {
+            return counted.add(pngBytes) ? bytes.capacity() : 0;
+        }
+
+        @Override
+        Object getStorage() {
+            return pngBytes;
+        }
+    }
+
+    private static final class Mapped extends TextureEntry {
+        private final ByteBuffer bytes;
+
+        private Mapped(ByteBuffer bytes, String fingerprint) {
+            super(fingerprint);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public boolean isCompact() {
+            return false;
+        }
+
+        @Override
+        ByteBuffer getBytes() {
+            return bytes;
+        }
+
+        @Override
+        long getHeldBytes(Set<Object> counted) {
+            // The bytes live in the page cache, not on the heap
+            return 0;
+        }
+
+        @Override
+        Object getStorage() {
+            return bytes;
+        }
+    }
+
+    private static final class Compact extends TextureEntry {
+        /** Headers and references of the entry and its render key; the shared template is not counted */
+        private static final long ESTIMATED_SIZE = 48;
+
+        private final TextureBlobs.RenderKey renderKey;
+        private final ColorMapping mapping;
+
+        private Compact(TemplateModel template, ColorMapping mapping, String fingerprint) {
+            super(fingerprint);
+            this.renderKey = new TextureBlobs.RenderKey(template, mapping);
+            this.mapping = mapping;
+        }
+
+        @Override
+        public boolean isCompact() {
+            return true;
+        }
+
+        @Override
+        ByteBuffer getBytes() throws IOException {
+            synchronized (RECENTLY_RENDERED) {
+                ByteBuffer cached = RECENTLY_RENDERED.get(renderKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            // Render outside the lock so reload threads can produce different textures concurrently
+            ByteBuffer rendered = ByteBuffer.wrap(TextureBlobs.render(renderKey, null)).asReadOnlyBuffer();
+            synchronized (RECENTLY_RENDERED) {
+                RECENTLY_RENDERED.put(renderKey, rendered);
+            }
+            return rendered;
+        }
+
+        @Override
+        long getHeldBytes(Set<Object> counted) {
+            // Every variant of a metal holds the same mapping, a gradient table is about 1 KiB of it
+            return ESTIMATED_SIZE + (counted.add(mapping) ? mapping.getHeldBytes() : 0);
+        }
+
+        @Override
+        Object getStorage() {
+            return this;
+        }
+    }
+}
@@ -1,7 +1,16 @@
 package com.tfcautoingots.client;
 
+import com.tfcautoingots.Config;
 import com.tfcautoingots.TFCAutoIngots;
+import com.tfcautoingots.metrics.PipelineMetrics;
 import com.tfcautoingots.texture.IngotTextureGenerator;
+import com.tfcautoingots.texture.NativeMemory;
+import com.tfcautoingots.texture.TextureBlobs;
+import com.tfcautoingots.texture.TextureVariant;
+import com.tfcautoingots.texture.core.PixelKernels;
+import com.tfcautoingots.texture.core.RecolorMode;
+import com.tfcautoingots.texture.core.TemplateModel;
+import com.tfcautoingots.util.Constants;
 import com.tfcautoingots.util.TagExtractor;
 
 import net.minecraft.network.chat.Component;
@@ -10,28 +19,35 @@ import net.minecraft.server.packs.PackSelectionConfig;
 import net.minecraft.server.packs.PackType;
 import net.minecraft.server.packs.repository.Pack;
 import net.minecraft.server.packs.repository.PackSource;
+import net.minecraft.server.packs.resources.ResourceManager;
 import net.neoforged.api.distmarker.Dist;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
-import net.neoforged.fml.event.lifecycle.FMLClientSetupEvent;
+import net.neoforged.neoforge.client.event.RegisterClientReloadListenersEvent;
 import net.neoforged.neoforge.event.AddPackFindersEvent;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Handles texture generation for ingots and registration of the dynamic resource pack.
  */
 @EventBusSubscriber(modid = TFCAutoIngots.MODID, bus = EventBusSubscriber.Bus.MOD, value = Dist.CLIENT)
 public class TextureGenerationHandler {
-    private static boolean texturesGenerated = false;
-
     @SubscribeEvent
     public static void onAddPackFinders(AddPackFindersEvent event) {
         if (event.getPackType() == PackType.CLIENT_RESOURCES) {
             PackLocationInfo locationInfo = new PackLocationInfo(
-                "tfcautoingots_generated",
+                Constants.GENERATED_PACK_ID,
                 Component.literal("TFC AutoIngots Generated"),
                 PackSource.BUILT_IN,
                 Optional.empty()
@@ -63,30 +79,31 @@ public class TextureGenerationHandler {
     }
 
     @SubscribeEvent
-    public static void onClientSetup(FMLClientSetupEvent event) {
-        event.enqueueWork(() -> {
-            if (!texturesGenerated) {
-                generateAllTextures();
-            }
-        });
+    public static void onRegisterReloadListeners(RegisterClientReloadListenersEvent event) {
+        event.registerReloadListener(new IngotTextureReloadListener());
     }
 
     /**
-     * Generate textures for all discovered ingots.
+     * Generate textures for all discovered ingots from the given resources, replacing those of the previous reload.
      */
-    private static void generateAllTextures() {
-        if (texturesGenerated) {
-            return;
-        }
-
-        TFCAutoIngots.getLogger().info("Generating ingot textures...");
+    static void generateAllTextures(ResourceManager resourceManager) {
+        TFCAutoIngots.getLogger().info("Generating ingot textures using {} pixel kernels...", PixelKernels.getImplementationName());
         
-        try {
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.GENERATION)) {
+            // The template and other packs' textures may have changed with the resource packs
+            IngotTextureGenerator.invalidateTemplate();
+            DynamicIngotTexturePack.resetCoveredMetals();
+
             Map<String, net.minecraft.world.item.Item> metalToIngot = discoverMetals();
-            TFCAutoIngots.getLogger().info("Found {} unique metals", metalToIngot.size());
+            TFCAutoIngots.getLogger().info("Found {} unique metals from {} candidate items in {} ms", metalToIngot.size(),
+                TagExtractor.getLastCandidateCount(), String.format("%.2f", TagExtractor.getLastDiscoveryNanos() / 1_000_000.0));
             
-            int successCount = generateBatch(metalToIngot);
-            texturesGenerated = true;
+            int successCount = generateBatch(resourceManager, metalToIngot,
+                (items, pool) -> IngotTextureGenerator.prefetchIngotTextures(resourceManager, items, pool),
+                Config.RECOLOR_MODE.get(), Config.COMPACT_MODE.get());
+
+            DynamicIngotTexturePack.persistTextures();
+            TextureBlobs.purge();
             
             logResults(successCount, metalToIngot.size());
         } catch (Exception e) {
@@ -103,15 +120,125 @@ public class TextureGenerationHandler {
 
     /**
      * Generate textures for a batch of metals.
+     * Source textures for all claimed metals are prefetched together, then decoded once per metal and recolored against
+     * every variant's template in parallel on a bounded worker pool. Results are published together once all workers have
+     * joined, replacing existing textures. Variants whose inputs are unchanged since their texture was generated keep it,
+     * and metals already being generated on demand are left to that generation.
+     *
+     * @param metalToIngot Metal name -> ingot to take its colors from
+     * @param sourceReader Reads the textures of the ingots of claimed metals
+     * @param mode How colors are derived from the source textures
+     * @param compact Whether to keep only the color mappings and render textures when they are served
+     * @return Number of metals whose textures are up to date
      */
-    private static int generateBatch(Map<String, net.minecraft.world.item.Item> metalToIngot) {
+    public static <I> int generateBatch(ResourceManager resourceManager, Map<String, I> metalToIngot, SourceReader<I> sourceReader,
+                                        RecolorMode mode, boolean compact) throws IOException {
+        Map<TextureVariant, TemplateModel> templates = IngotTextureGenerator.getTemplateModels(resourceManager);
+
         int successCount = 0;
-        for (Map.Entry<String, net.minecraft.world.item.Item> entry : metalToIngot.entrySet()) {
-            if (IngotTextureGenerator.generateTexture(entry.getKey(), entry.getValue())) {
-                successCount++;
+        List<String> providedElsewhere = new ArrayList<>();
+        Map<String, Map<TextureVariant, TemplateModel>> variantsByMetal = new HashMap<>();
+        Map<String, IngotTextureGenerator.Flight> flights = new HashMap<>();
+        List<IngotTextureGenerator.GenerationInput> inputs = new ArrayList<>();
+        Map<String, TextureEntry> results = new HashMap<>();
+        Set<String> generatedMetals = new HashSet<>();
+        ForkJoinPool workerPool = new ForkJoinPool(getWorkerCount());
+        try {
+            for (String metalName : metalToIngot.keySet()) {
+                Map<TextureVariant, TemplateModel> variants = IngotTextureGenerator.getVariantsToGenerate(resourceManager, metalName, templates, true);
+                for (TextureVariant variant : templates.keySet()) {
+                    if (!variants.containsKey(variant)) {
+                        providedElsewhere.add(variant.getPath(metalName));
+                    }
+                }
+                if (variants.isEmpty()) {
+                    DynamicIngotTexturePack.markCovered(metalName);
+                    continue;
+                }
+
+                IngotTextureGenerator.Flight flight = IngotTextureGenerator.beginFlight(metalName, true);
+                if (flight.isOwner()) {
+                    flights.put(metalName, flight);
+                    variantsByMetal.put(metalName, variants);
+                } else {
+                    successCount++;
+                }
+            }
+
+            List<I> claimedIngots = flights.keySet().stream().map(metalToIngot::get).toList();
+            Map<I, byte[]> sourceTextures = sourceReader.read(claimedIngots, workerPool);
+
+            for (String metalName : List.copyOf(flights.keySet())) {
+                IngotTextureGenerator.GenerationInput input = IngotTextureGenerator.createInput(
+                    metalName, variantsByMetal.get(metalName), sourceTextures.get(metalToIngot.get(metalName)), mode, compact);
+
+                // Keep textures whose template and source texture are unchanged since they were generated
+                IngotTextureGenerator.GenerationInput outdated = IngotTextureGenerator.retainOutdated(input);
+                if (outdated == null) {
+                    flights.remove(metalName).complete(true);
+                    successCount++;
+                    continue;
+                }
+                inputs.add(outdated);
+            }
+
+            if (!providedElsewhere.isEmpty()) {
+                TFCAutoIngots.getLogger().info("Skipped {} textures already provided by other resource packs", providedElsewhere.size());
+            }
+            TFCAutoIngots.getLogger().info("Regenerating {} metals with changed textures across {} variants, keeping {}",
+                inputs.size(), templates.size(), successCount);
+
+            List<Map.Entry<String, Map<String, TextureEntry>>> rendered = workerPool.submit(() -> inputs.parallelStream()
+                .map(TextureGenerationHandler::renderSafely)
+                .filter(Objects::nonNull)
+                .toList()
+            ).join();
+            for (Map.Entry<String, Map<String, TextureEntry>> metal : rendered) {
+                generatedMetals.add(metal.getKey());
+                results.putAll(metal.getValue());
+            }
+
+            DynamicIngotTexturePack.updateTextures(results, providedElsewhere);
+            return successCount + generatedMetals.size();
+        } finally {
+            workerPool.shutdown();
+            for (Map.Entry<String, IngotTextureGenerator.Flight> flight : flights.entrySet()) {
+                flight.getValue().complete(generatedMetals.contains(flight.getKey()));
             }
         }
-        return successCount;
+    }
+
+    /**
+     * Reads the source textures of many ingots at once, so the batch can also run over ingots outside the game.
+     * In game this is {@link IngotTextureGenerator#prefetchIngotTextures}.
+     *
+     * @param <I> Ingot type
+     */
+    public interface SourceReader<I> {
+        /**
+         * @param pool Pool to read on
+         * @return Ingot -> raw texture bytes, without ingots whose texture is missing or unreadable
+         */
+        Map<I, byte[]> read(Collection<I> ingots, ForkJoinPool pool);
+    }
+
+    /**
+     * Render all variants of a metal on a worker thread, logging failures instead of aborting the batch.
+     */
+    private static Map.Entry<String, Map<String, TextureEntry>> renderSafely(IngotTextureGenerator.GenerationInput input) {
+        try {
+            return Map.entry(input.getMetalName(), IngotTextureGenerator.generateEntries(input));
+        } catch (Exception e) {
+            TFCAutoIngots.getLogger().error("Failed to generate texture for '{}': {}", input.getMetalName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Number of worker threads used for batch reads and generation, leaving one core for the main thread.
+     */
+    private static int getWorkerCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
     }
 
     /**
@@ -123,11 +250,16 @@ public class TextureGenerationHandler {
         Set<String> registeredMetals = DynamicIngotTexturePack.getRegisteredMetals();
         if (registeredMetals.size() > 0) {
             TFCAutoIngots.getLogger().info("═══════════════════════════════════════════════════════");
-            TFCAutoIngots.getLogger().info("TFC AutoIngots: Generated {} texture files", registeredMetals.size());
+            TFCAutoIngots.getLogger().info("TFC AutoIngots: Generated {} texture files for {} metals",
+                DynamicIngotTexturePack.getTextureCount(), registeredMetals.size());
             TFCAutoIngots.getLogger().info("Textures are available at runtime - no resource pack selection needed");
+            TFCAutoIngots.getLogger().info("Memory: {} KB on heap, {} KB mapped archive, {} KB native (peak {} KB during generation)",
+                DynamicIngotTexturePack.getHeldBytes() / 1024, TextureArchive.getMappedBytes() / 1024,
+                NativeMemory.getBytesHeld() / 1024, NativeMemory.getPeakBytes() / 1024);
             TFCAutoIngots.getLogger().info("═══════════════════════════════════════════════════════");
         } else {
             TFCAutoIngots.getLogger().warn("No textures were generated! Check logs above for errors.");
         }
+        PipelineMetrics.describe().forEach(line -> TFCAutoIngots.getLogger().debug("Pipeline metrics: {}", line));
     }
 }
@@ -0,0 +1,26 @@
+package com.tfcautoingots.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for generating all textures of one metal.
+ */
+@Name("tfcautoingots.Metal")
+@Label("Metal Texture Generation")
+@Category({"TFC AutoIngots"})
+@Description("Generation of every texture variant of one metal")
+class MetalEvent extends Event {
+    @Label("Metal")
+    String metal;
+
+    @Label("Textures")
+    int textures;
+
+    @Label("From Archive")
+    @Description("Whether every texture was served from the texture archive")
+    boolean fromArchive;
+}
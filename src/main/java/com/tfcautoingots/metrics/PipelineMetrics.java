@@ -0,0 +1,218 @@
+package com.tfcautoingots.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Session-wide timers and counters for the texture pipeline, from discovery to serving textures to the game.
+ * Recording is a few uncontended adds, so it stays enabled in production. Every timed stage is also emitted as a
+ * JDK Flight Recorder event when a recording is running, see {@link StageEvent} and {@link MetalEvent}.
+ */
+public final class PipelineMetrics {
+    private PipelineMetrics() {}
+
+    /**
+     * A timed part of the pipeline.
+     */
+    public enum Stage {
+        DISCOVERY("Metal discovery"),
+        RESOURCE_LOOKUP("Resource lookup"),
+        DECODE("PNG decode"),
+        PALETTE("Palette analysis"),
+        RECOLOR("Recolor"),
+        ENCODE("PNG encode"),
+        ARCHIVE_MAP("Archive map"),
+        ARCHIVE_WRITE("Archive write"),
+        GENERATION("Reload generation"),
+        LIST("Pack listing"),
+        SERVE("Texture serve");
+
+        private final String label;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+    /**
+     * A counted event of the pipeline.
+     */
+    public enum Counter {
+        ARCHIVE_HITS("Archive hits"),
+        ARCHIVE_MISSES("Archive misses"),
+        PALETTE_HITS("Palette cache hits"),
+        PALETTE_MISSES("Palette cache misses"),
+        METALS_GENERATED("Metals generated"),
+        TEXTURES_SERVED("Textures served"),
+        BYTES_SERVED("Bytes served");
+
+        private final String label;
+        private final LongAdder value = new LongAdder();
+
+        Counter(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+    }
+
+    /**
+     * Start timing a stage. Use with try-with-resources; the time is recorded when the timer is closed.
+     */
+    public static Timer time(Stage stage) {
+        return new Timer(stage, null);
+    }
+
+    /**
+     * Start timing a stage of one metal's generation.
+     *
+     * @param metalName The metal, attached to the Flight Recorder event
+     */
+    public static Timer time(Stage stage, String metalName) {
+        return new Timer(stage, metalName);
+    }
+
+    /**
+     * Start timing the generation of all textures of one metal, see {@link MetalTimer#finish}.
+     */
+    public static MetalTimer timeMetal(String metalName) {
+        return new MetalTimer(metalName);
+    }
+
+    /**
+     * Clear all timers and counters.
+     */
+    public static void reset() {
+        for (Stage stage : Stage.values()) {
+            stage.reset();
+        }
+        for (Counter counter : Counter.values()) {
+            counter.value.reset();
+        }
+    }
+
+    /**
+     * Human-readable summary of every stage that ran and every counter, one line each.
+     */
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            long count = stage.getCount();
+            if (count > 0) {
+                lines.add(String.format("%s: %d runs, %.2f ms total, %.3f ms avg, %.3f ms max", stage.getLabel(), count,
+                    stage.getTotalNanos() / 1_000_000.0, stage.getTotalNanos() / 1_000_000.0 / count, stage.getMaxNanos() / 1_000_000.0));
+            }
+        }
+        for (Counter counter : Counter.values()) {
+            lines.add(counter.getLabel() + ": " + counter.get());
+        }
+        return lines;
+    }
+
+    /**
+     * A running measurement of one stage, see {@link #time(Stage)}.
+     */
+    public static final class Timer implements AutoCloseable {
+        private final Stage stage;
+        private final String metalName;
+        private final StageEvent event;
+        private final long startNanos;
+
+        private Timer(Stage stage, String metalName) {
+            this.stage = stage;
+            this.metalName = metalName;
+            this.event = new StageEvent();
+            event.begin();
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            stage.record(System.nanoTime() - startNanos);
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.getLabel();
+                event.metal = metalName;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * A running measurement of one metal's generation, see {@link #timeMetal(String)}.
+     */
+    public static final class MetalTimer {
+        private final String metalName;
+        private final MetalEvent event;
+
+        private MetalTimer(String metalName) {
+            this.metalName = metalName;
+            this.event = new MetalEvent();
+            event.begin();
+        }
+
+        /**
+         * Record the finished generation.
+         *
+         * @param textures Number of textures produced
+         * @param fromArchive Whether all of them were served from the texture archive
+         */
+        public void finish(int textures, boolean fromArchive) {
+            Counter.METALS_GENERATED.increment();
+            event.end();
+            if (event.shouldCommit()) {
+                event.metal = metalName;
+                event.textures = textures;
+                event.fromArchive = fromArchive;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.tfcautoingots.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one run of a pipeline stage, see {@link PipelineMetrics.Stage}.
+ */
+@Name("tfcautoingots.Stage")
+@Label("Texture Pipeline Stage")
+@Category({"TFC AutoIngots"})
+@Description("One run of a texture pipeline stage")
+class StageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Metal")
+    @Description("Metal being generated, if the stage belongs to one")
+    String metal;
+}
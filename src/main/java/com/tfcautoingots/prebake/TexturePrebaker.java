@@ -0,0 +1,221 @@
+package com.tfcautoingots.prebake;
+
+import com.tfcautoingots.texture.TextureVariant;
+import com.tfcautoingots.texture.core.ColorMapping;
+import com.tfcautoingots.texture.core.MetalNames;
+import com.tfcautoingots.texture.core.PngDecoder;
+import com.tfcautoingots.texture.core.PngEncoder;
+import com.tfcautoingots.texture.core.RecolorMode;
+import com.tfcautoingots.texture.core.TemplateModel;
+import com.tfcautoingots.util.Constants;
+
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Headless generator that bakes every {@link TextureVariant} of every metal into a static resource pack at modpack build time.
+ * Runs the same recolor pipeline as the game, but reads ingot textures from directories, zips or
+ * mod jars instead of the resource manager. Clients with the resulting pack installed skip generation
+ * for every texture it contains.
+ * <p>
+ * Like in game, a variant's template is the one bundled with this mod, or else TFC's texture it falls back to, which is
+ * only found if TFC's jar is among the inputs. Variants without a template are skipped with a warning. {@code --template}
+ * replaces the template of {@link TextureVariant#SMOOTH}.
+ *
+ * <pre>
+ * java -cp tfcautoingots.jar com.tfcautoingots.prebake.TexturePrebaker --output pack.zip [--template template.png] [--mode flat|gradient] input...
+ * </pre>
+ */
+public class TexturePrebaker {
+    private static final Pattern ITEM_TEXTURE = Pattern.compile("assets/([a-z0-9_.-]+)/textures/item/([a-z0-9_./-]+)\\.png");
+
+    public static void main(String[] args) throws IOException {
+        Path output = null;
+        Path templatePath = null;
+        RecolorMode mode = RecolorMode.FLAT;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--output" -> output = Path.of(args[++i]);
+                case "--template" -> templatePath = Path.of(args[++i]);
+                case "--mode" -> mode = RecolorMode.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+
+        if (output == null || inputs.isEmpty()) {
+            System.err.println("Usage: TexturePrebaker --output <pack.zip> [--template <template.png>] [--mode flat|gradient] <dir|zip|jar>...");
+            System.exit(2);
+            return;
+        }
+
+        Set<String> fallbackTemplates = new HashSet<>();
+        for (TextureVariant variant : TextureVariant.ALL) {
+            fallbackTemplates.add(assetPath(variant.getFallbackTemplate()));
+        }
+        Map<String, byte[]> foundTemplates = new HashMap<>();
+        Map<String, byte[]> ingotTextures = collectIngotTextures(inputs, fallbackTemplates, foundTemplates);
+
+        Map<TextureVariant, byte[]> templates = new LinkedHashMap<>();
+        for (TextureVariant variant : TextureVariant.ALL) {
+            byte[] templateBytes = variant == TextureVariant.SMOOTH && templatePath != null ? Files.readAllBytes(templatePath) : readBundledTemplate(variant);
+            if (templateBytes == null) {
+                templateBytes = foundTemplates.get(assetPath(variant.getFallbackTemplate()));
+            }
+            if (templateBytes != null) {
+                templates.put(variant, templateBytes);
+            } else if (variant == TextureVariant.SMOOTH) {
+                throw new IOException("Template texture not found at " + variant.getTemplate() + " or " + variant.getFallbackTemplate());
+            } else {
+                System.err.println("No template for the '" + variant + "' variant, skipping it; add TFC's jar to the inputs to bake it");
+            }
+        }
+
+        Map<String, byte[]> baked = bake(templates, ingotTextures, mode);
+        writePack(output, baked);
+        System.out.println("Baked " + baked.size() + " textures of " + templates.size() + " variants for " + ingotTextures.size() + " metals into " + output);
+    }
+
+    /**
+     * Recolor every variant's template for every metal, decoding each ingot texture once.
+     *
+     * @param templates Variant -> encoded template texture
+     * @param ingotTextures Metal name -> encoded ingot texture
+     * @param mode How colors are derived from each ingot texture
+     * @return Texture path in the TFC namespace -> encoded texture, sorted by path, see {@link TextureVariant#getPath}
+     */
+    public static Map<String, byte[]> bake(Map<TextureVariant, byte[]> templates, Map<String, byte[]> ingotTextures, RecolorMode mode) throws IOException {
+        Map<TextureVariant, TemplateModel> models = new LinkedHashMap<>();
+        for (Map.Entry<TextureVariant, byte[]> template : templates.entrySet()) {
+            models.put(template.getKey(), TemplateModel.create(PngDecoder.decode(template.getValue()), new byte[0]));
+        }
+
+        Map<String, byte[]> baked = new TreeMap<>();
+        for (Map.Entry<String, byte[]> entry : ingotTextures.entrySet()) {
+            ColorMapping mapping;
+            try {
+                mapping = ColorMapping.fromSource(PngDecoder.decode(entry.getValue()).getPixels(), mode);
+            } catch (IOException e) {
+                System.err.println("Using default color for '" + entry.getKey() + "': " + e.getMessage());
+                mapping = ColorMapping.fromColor(Constants.DEFAULT_COLOR);
+            }
+            for (Map.Entry<TextureVariant, TemplateModel> model : models.entrySet()) {
+                baked.put(model.getKey().getPath(entry.getKey()), PngEncoder.encode(model.getValue().recolor(mapping)));
+            }
+        }
+        return baked;
+    }
+
+    /**
+     * Find ingot textures in the given directories, zips or jars.
+     * Like discovery in game, the first item per metal wins and TFC's own ingots are skipped.
+     *
+     * @param wantedFiles Paths of other files to collect, relative to the input's root
+     * @param found Filled with the first of each wanted file found
+     * @return Metal name -> encoded ingot texture
+     */
+    private static Map<String, byte[]> collectIngotTextures(List<Path> inputs, Set<String> wantedFiles, Map<String, byte[]> found) throws IOException {
+        Map<String, byte[]> textures = new TreeMap<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                collectFrom(input, textures, wantedFiles, found);
+            } else {
+                try (FileSystem zip = FileSystems.newFileSystem(input)) {
+                    collectFrom(zip.getPath("/"), textures, wantedFiles, found);
+                }
+            }
+        }
+        return textures;
+    }
+
+    private static void collectFrom(Path root, Map<String, byte[]> textures, Set<String> wantedFiles, Map<String, byte[]> found) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        for (Path file : files) {
+            String relativePath = root.relativize(file).toString().replace('\\', '/');
+            if (wantedFiles.contains(relativePath) && !found.containsKey(relativePath)) {
+                found.put(relativePath, Files.readAllBytes(file));
+                continue;
+            }
+
+            Matcher matcher = ITEM_TEXTURE.matcher(relativePath);
+            if (!matcher.matches() || matcher.group(1).equals(Constants.TFC_NAMESPACE)) {
+                continue;
+            }
+
+            String itemPath = matcher.group(2);
+            String metalName = MetalNames.fromItemPath(itemPath.substring(itemPath.lastIndexOf('/') + 1));
+            if (metalName != null && !metalName.isEmpty() && !textures.containsKey(metalName)) {
+                textures.put(metalName, Files.readAllBytes(file));
+            }
+        }
+    }
+
+    private static void writePack(Path output, Map<String, byte[]> textures) throws IOException {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+
+        try (OutputStream stream = Files.newOutputStream(output);
+             ZipOutputStream zip = new ZipOutputStream(stream)) {
+            zip.putNextEntry(new ZipEntry("pack.mcmeta"));
+            String packMeta = "{\"pack\":{\"pack_format\":" + Constants.PACK_FORMAT
+                + ",\"description\":\"Pre-baked TFC AutoIngots metal textures\"}}";
+            zip.write(packMeta.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+
+            for (Map.Entry<String, byte[]> texture : textures.entrySet()) {
+                zip.putNextEntry(new ZipEntry(assetPath(Constants.TFC_NAMESPACE, texture.getKey())));
+                zip.write(texture.getValue());
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Read the template bundled with this mod for a variant.
+     *
+     * @return The bytes, or null if this mod doesn't bundle one
+     */
+    private static byte[] readBundledTemplate(TextureVariant variant) throws IOException {
+        try (InputStream stream = TexturePrebaker.class.getResourceAsStream("/" + assetPath(variant.getTemplate()))) {
+            return stream != null ? stream.readAllBytes() : null;
+        }
+    }
+
+    /**
+     * Path of a resource inside a pack or jar, e.g. {@code assets/tfc/textures/block/metal/smooth/lead.png}.
+     */
+    private static String assetPath(String namespace, String path) {
+        return "assets/" + namespace + "/" + path;
+    }
+
+    private static String assetPath(ResourceLocation location) {
+        return assetPath(location.getNamespace(), location.getPath());
+    }
+}
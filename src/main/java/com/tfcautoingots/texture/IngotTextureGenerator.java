@@ -1,211 +1,545 @@
 package com.tfcautoingots.texture;
 
-import com.mojang.blaze3d.platform.NativeImage;
+import com.tfcautoingots.Config;
 import com.tfcautoingots.TFCAutoIngots;
 import com.tfcautoingots.client.DynamicIngotTexturePack;
+import com.tfcautoingots.client.TextureArchive;
+import com.tfcautoingots.client.TextureEntry;
+import com.tfcautoingots.metrics.PipelineMetrics;
+import com.tfcautoingots.texture.core.ColorMapping;
+import com.tfcautoingots.texture.core.ColorPalette;
+import com.tfcautoingots.texture.core.PngEncoder;
+import com.tfcautoingots.texture.core.Raster;
+import com.tfcautoingots.texture.core.RecolorMode;
+import com.tfcautoingots.texture.core.TemplateModel;
 import com.tfcautoingots.util.Constants;
-import com.tfcautoingots.util.TagExtractor;
 
-import net.minecraft.client.Minecraft;
-import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.world.item.Item;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Generates pile textures for ingots from any mod by recoloring TFC's template texture.
+ * Generates metal textures for ingots from any mod by recoloring TFC's template textures, one per {@link TextureVariant}.
  * Textures are generated in-memory and stored in the dynamic resource pack.
+ * Results are persisted in the {@link TextureArchive} so unchanged metals skip decoding and recoloring on later launches.
  */
 public class IngotTextureGenerator {
     /**
-     * Generate a texture for the given metal and register it in the dynamic pack.
-     * 
+     * Fewest wanted textures in one directory worth a listing. A listing walks every file under the directory in every
+     * pack, thousands under textures/item in a large modpack, while a lookup only probes each pack for one file.
+     */
+    private static final int MIN_TEXTURES_PER_LISTING = 256;
+    /** Preprocessed templates of the available variants, in {@link TextureVariant#ALL} order */
+    private static volatile Map<TextureVariant, TemplateModel> templateModels;
+    private static final Map<String, Boolean> PROVIDED_BY_OTHER_PACKS = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<Boolean>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final int PALETTE_CACHE_SIZE = 1024;
+    /** Hex SHA-256 of an ingot texture -> its palette, least recently used first */
+    private static final Map<String, ColorPalette> PALETTES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ColorPalette> eldest) {
+            return size() > PALETTE_CACHE_SIZE;
+        }
+    };
+    private static volatile Decoder decoder = NativeMemory::decode;
+
+    /**
+     * Claim generation of a metal, or join the generation already in flight for it.
+     * Only the owner of a flight generates: it registers the texture and then calls {@link Flight#complete(boolean)}.
+     * Everyone else leaves the metal to the owner, so a metal is never generated twice.
+     */
+    public static Flight beginFlight(String metalName) {
+        return beginFlight(metalName, false);
+    }
+
+    /**
+     * Claim generation of a metal, or join the generation already in flight for it.
+     *
+     * @param regenerate Claim the metal even if it already has a texture, e.g. to replace it after a resource reload
+     */
+    public static Flight beginFlight(String metalName, boolean regenerate) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = IN_FLIGHT.putIfAbsent(metalName, result);
+        if (existing != null) {
+            return new Flight(metalName, existing, false);
+        }
+
+        // A flight that finished just before this one was claimed has already registered its texture
+        if (!regenerate && DynamicIngotTexturePack.isCovered(metalName)) {
+            IN_FLIGHT.remove(metalName, result);
+            result.complete(true);
+            return new Flight(metalName, result, false);
+        }
+        return new Flight(metalName, result, true);
+    }
+
+    /**
+     * Check whether a resource pack other than the dynamic one, such as a pre-baked pack, already has a metal's texture.
+     * Results are remembered until the next resource reload.
+     */
+    public static boolean isProvidedByAnotherPack(ResourceManager resourceManager, TextureVariant variant, String metalName) {
+        return PROVIDED_BY_OTHER_PACKS.computeIfAbsent(variant.getPath(metalName), path ->
+            resourceManager.getResourceStack(variant.getLocation(metalName)).stream()
+                .anyMatch(resource -> !Constants.GENERATED_PACK_ID.equals(resource.sourcePackId())));
+    }
+
+    /**
+     * Select the variants of a metal that no other resource pack provides.
+     *
+     * @param templates Available variants, see {@link #getTemplateModels(ResourceManager)}
+     * @param regenerate Also select variants that already have a registered texture, e.g. to replace them after a resource reload
+     * @return The subset of templates to render for the metal
+     */
+    public static Map<TextureVariant, TemplateModel> getVariantsToGenerate(ResourceManager resourceManager, String metalName,
+                                                                           Map<TextureVariant, TemplateModel> templates, boolean regenerate) {
+        Map<TextureVariant, TemplateModel> selected = new LinkedHashMap<>();
+        for (Map.Entry<TextureVariant, TemplateModel> template : templates.entrySet()) {
+            TextureVariant variant = template.getKey();
+            if (!regenerate && DynamicIngotTexturePack.getTexture(variant.getPath(metalName)) != null) {
+                continue;
+            }
+            if (!isProvidedByAnotherPack(resourceManager, variant, metalName)) {
+                selected.put(variant, template.getValue());
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Gather everything needed to render a metal's textures from the given resources.
+     * Safe off the main thread when the resources belong to a reload in progress.
+     *
      * @param metalName The name of the metal (e.g., "lead")
      * @param ingotItem The ingot item to extract color from
-     * @return true if generation was successful, false otherwise
+     * @param templates The variants to render, see {@link #getVariantsToGenerate}
      */
-    public static boolean generateTexture(String metalName, Item ingotItem) {
-        if (DynamicIngotTexturePack.hasTexture(metalName)) {
-            return true;
+    public static GenerationInput prepareInput(ResourceManager resourceManager, String metalName, Item ingotItem,
+                                               Map<TextureVariant, TemplateModel> templates) {
+        return createInput(metalName, templates, loadIngotTextureBytes(resourceManager, ingotItem));
+    }
+
+    /**
+     * Create the input for a metal whose source texture has already been read, see {@link #prefetchIngotTextures}.
+     *
+     * @param sourceBytes Raw bytes of the ingot texture, or null if the ingot has no texture
+     */
+    public static GenerationInput createInput(String metalName, Map<TextureVariant, TemplateModel> templates, byte[] sourceBytes) {
+        return createInput(metalName, templates, sourceBytes, Config.RECOLOR_MODE.get(), Config.COMPACT_MODE.get());
+    }
+
+    /**
+     * Create the input for a metal with explicit settings instead of the client config.
+     *
+     * @param mode How colors are derived from the source texture
+     * @param compact Whether to keep only the color mapping and render textures when they are served
+     */
+    public static GenerationInput createInput(String metalName, Map<TextureVariant, TemplateModel> templates, byte[] sourceBytes,
+                                              RecolorMode mode, boolean compact) {
+        return new GenerationInput(metalName, templates, sourceBytes, mode, compact);
+    }
+
+    /**
+     * Read the source textures of many ingots at once.
+     * Texture locations come from each item's model, see {@link IngotTextureResolver}. They are then found and read
+     * together, see {@link #readTextures}.
+     *
+     * @return Ingot item -> raw texture bytes, without items whose texture is missing or unreadable
+     */
+    public static Map<Item, byte[]> prefetchIngotTextures(ResourceManager resourceManager, Collection<Item> ingotItems, ForkJoinPool pool) {
+        Map<ResourceLocation, List<Item>> itemsByTexture = new HashMap<>();
+        IngotTextureResolver.resolveAll(resourceManager, ingotItems)
+            .forEach((item, texture) -> itemsByTexture.computeIfAbsent(texture, location -> new ArrayList<>()).add(item));
+
+        Map<ResourceLocation, byte[]> found = readTextures(resourceManager, itemsByTexture.keySet(), pool);
+        Map<Item, byte[]> textures = new HashMap<>();
+        for (Map.Entry<ResourceLocation, List<Item>> texture : itemsByTexture.entrySet()) {
+            byte[] bytes = found.get(texture.getKey());
+            for (Item item : texture.getValue()) {
+                if (bytes != null) {
+                    textures.put(item, bytes);
+                } else {
+                    IngotTextureResolver.markMissing(item);
+                }
+            }
         }
+        return textures;
+    }
+
+    /**
+     * Read many textures in parallel on the given pool.
+     * Directories holding many of the wanted textures are searched with one listing pass over the pack stack each,
+     * the remaining textures are looked up one by one.
+     *
+     * @return Texture location -> raw bytes, without textures that are missing or unreadable
+     */
+    public static Map<ResourceLocation, byte[]> readTextures(ResourceManager resourceManager, Set<ResourceLocation> locations, ForkJoinPool pool) {
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.RESOURCE_LOOKUP)) {
+            Map<String, Set<ResourceLocation>> byDirectory = new HashMap<>();
+            for (ResourceLocation texture : locations) {
+                byDirectory.computeIfAbsent(getDirectory(texture), directory -> new HashSet<>()).add(texture);
+            }
+            // Listings include subdirectories, so each only keeps the textures of its own directory
+            Map<ResourceLocation, Resource> listed = new HashMap<>();
+            Set<String> listedDirectories = new HashSet<>();
+            for (Map.Entry<String, Set<ResourceLocation>> directory : byDirectory.entrySet()) {
+                if (directory.getValue().size() >= MIN_TEXTURES_PER_LISTING) {
+                    listed.putAll(resourceManager.listResources(directory.getKey(), directory.getValue()::contains));
+                    listedDirectories.add(directory.getKey());
+                }
+            }
 
-        try {
-            int targetColor = extractPrimaryColorFromIngot(ingotItem);
-            NativeImage pileImage = recolorTemplateTexture(targetColor);
-            
-            DynamicIngotTexturePack.registerTexture(metalName, pileImage);
-            TFCAutoIngots.getLogger().debug("Generated texture for '{}'", metalName);
-            return true;
-        } catch (Exception e) {
-            TFCAutoIngots.getLogger().error("Failed to generate texture for '{}': {}", metalName, e.getMessage());
-            return false;
+            Map<ResourceLocation, byte[]> textures = new ConcurrentHashMap<>();
+            pool.submit(() -> locations.parallelStream().forEach(location -> {
+                Resource resource = listedDirectories.contains(getDirectory(location))
+                    ? listed.get(location)
+                    : resourceManager.getResource(location).orElse(null);
+                byte[] bytes = resource != null ? readResource(location, resource) : null;
+                if (bytes != null) {
+                    textures.put(location, bytes);
+                }
+            })).join();
+            return textures;
         }
     }
 
     /**
-     * Extract the primary color from an ingot item's texture.
+     * Directory holding a texture, without a trailing slash.
      */
-    private static int extractPrimaryColorFromIngot(Item ingotItem) {
-        int primaryColor = Constants.DEFAULT_COLOR;
+    private static String getDirectory(ResourceLocation texture) {
+        return texture.getPath().substring(0, Math.max(0, texture.getPath().lastIndexOf('/')));
+    }
 
-        ResourceLocation textureLocation = TagExtractor.getIngotTextureLocation(ingotItem);
+    /**
+     * Drop the variants whose registered texture was generated from the same template and source texture, in the current
+     * storage mode, so they can be kept as they are.
+     *
+     * @return The input restricted to outdated variants, or null if every variant is up to date
+     */
+    public static GenerationInput retainOutdated(GenerationInput input) {
+        Map<TextureVariant, TemplateModel> outdated = new LinkedHashMap<>();
+        for (Map.Entry<TextureVariant, TemplateModel> template : input.templates.entrySet()) {
+            TextureEntry existing = DynamicIngotTexturePack.getTexture(template.getKey().getPath(input.metalName));
+            boolean upToDate = existing != null
+                && existing.isCompact() == input.compact
+                && existing.getFingerprint().equals(input.fingerprints.get(template.getKey()));
+            if (!upToDate) {
+                outdated.put(template.getKey(), template.getValue());
+            }
+        }
 
-        try {
-            Optional<Resource> resourceOpt = Minecraft.getInstance().getResourceManager().getResource(textureLocation);
-            if (resourceOpt.isPresent()) {
-                try (InputStream stream = resourceOpt.get().open();
-                     NativeImage image = NativeImage.read(stream)) {
-                    primaryColor = extractAverageColor(image);
+        if (outdated.isEmpty()) {
+            return null;
+        }
+        return outdated.size() == input.templates.size() ? input
+            : new GenerationInput(input.metalName, outdated, input.sourceBytes, input.mode, input.compact);
+    }
+
+    /**
+     * Produce the pack entries for every variant of a prepared input.
+     * The ingot texture is decoded at most once, and not at all if every variant is in the texture archive.
+     * In compact mode only the color mapping is computed; textures are rendered when the pack serves them.
+     * Safe to call from worker threads.
+     *
+     * @return Texture path -> entry
+     */
+    public static Map<String, TextureEntry> generateEntries(GenerationInput input) throws IOException {
+        PipelineMetrics.MetalTimer metalTimer = PipelineMetrics.timeMetal(input.metalName);
+        Map<String, TextureEntry> entries = new HashMap<>();
+        ColorMapping mapping = null;
+        for (Map.Entry<TextureVariant, TemplateModel> template : input.templates.entrySet()) {
+            TextureVariant variant = template.getKey();
+            String fingerprint = input.fingerprints.get(variant);
+
+            TextureEntry entry = null;
+            if (!input.compact) {
+                entry = TextureArchive.lookup(variant.getPath(input.metalName), fingerprint);
+                (entry != null ? PipelineMetrics.Counter.ARCHIVE_HITS : PipelineMetrics.Counter.ARCHIVE_MISSES).increment();
+            }
+            if (entry == null) {
+                if (mapping == null) {
+                    mapping = extractColorMapping(input);
+                }
+
+                if (input.compact) {
+                    entry = TextureEntry.compact(template.getValue(), mapping, fingerprint);
+                } else {
+                    byte[] pngBytes = TextureBlobs.render(new TextureBlobs.RenderKey(template.getValue(), mapping), input.metalName);
+                    entry = TextureEntry.encoded(pngBytes, fingerprint);
                 }
             }
-        } catch (IOException e) {
-            TFCAutoIngots.getLogger().debug("Using default color for {}", BuiltInRegistries.ITEM.getKey(ingotItem));
+            entries.put(variant.getPath(input.metalName), entry);
         }
 
-        return primaryColor;
+        metalTimer.finish(entries.size(), mapping == null);
+        TFCAutoIngots.getLogger().debug("Generated {} textures for '{}'{}", entries.size(), input.metalName, mapping == null ? " from archive" : "");
+        return entries;
     }
 
     /**
-     * Extract average color from an image (ignoring transparent pixels).
+     * Recolor the template with the given mapping and encode the result as PNG.
+     *
+     * @param metalName Metal the texture is for, attached to the timing events, or null if it isn't generated for one
      */
-    private static int extractAverageColor(NativeImage image) {
-        int totalR = 0, totalG = 0, totalB = 0, pixelCount = 0;
+    public static byte[] encodeTexture(TemplateModel template, ColorMapping mapping, String metalName) throws IOException {
+        Raster recolored;
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.RECOLOR, metalName)) {
+            recolored = template.recolor(mapping);
+        }
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.ENCODE, metalName)) {
+            return PngEncoder.encode(recolored);
+        }
+    }
 
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                int color = image.getPixelRGBA(x, y);
-                int alpha = (color >> 24) & 0xFF;
-                if (alpha < Constants.TRANSPARENCY_THRESHOLD) {
-                    continue;
+    /**
+     * Get the preprocessed templates of every available variant, decoding them from the given resources on first use after
+     * a resource reload. Variants without a template are left out.
+     *
+     * @throws IOException If the template of {@link TextureVariant#SMOOTH} is missing
+     */
+    public static Map<TextureVariant, TemplateModel> getTemplateModels(ResourceManager resourceManager) throws IOException {
+        Map<TextureVariant, TemplateModel> models = templateModels;
+        if (models == null) {
+            synchronized (IngotTextureGenerator.class) {
+                models = templateModels;
+                if (models == null) {
+                    models = new LinkedHashMap<>();
+                    for (TextureVariant variant : TextureVariant.ALL) {
+                        byte[] templateBytes = loadTemplateBytes(resourceManager, variant);
+                        if (templateBytes != null) {
+                            models.put(variant, TemplateModel.create(decoder.decode(templateBytes, null), TextureCache.digest(templateBytes)));
+                        } else if (variant == TextureVariant.SMOOTH) {
+                            throw new IOException("Template texture not found at " + variant.getTemplate() + " or " + variant.getFallbackTemplate());
+                        } else {
+                            TFCAutoIngots.getLogger().debug("No template for the '{}' variant, skipping it", variant);
+                        }
+                    }
+                    models = Collections.unmodifiableMap(models);
+                    templateModels = models;
                 }
+            }
+        }
+        return models;
+    }
+
+    /**
+     * Decode textures with the given decoder instead of STB, for running the pipeline outside the game where STB's natives
+     * aren't loaded, see {@link com.tfcautoingots.texture.core.PngDecoder}.
+     */
+    public static void useDecoder(Decoder textureDecoder) {
+        decoder = textureDecoder;
+        invalidateTemplate();
+    }
+
+    /**
+     * Drop the preprocessed templates and remembered pack lookups so the next generation re-reads them from the current resource packs.
+     */
+    public static void invalidateTemplate() {
+        templateModels = null;
+        PROVIDED_BY_OTHER_PACKS.clear();
+        IngotTextureResolver.invalidate();
+    }
+
+    /**
+     * Forget every analyzed palette. They are keyed by texture content and stay valid across reloads, so this is only
+     * needed to measure generation from a cold start.
+     */
+    public static void clearPalettes() {
+        synchronized (PALETTES) {
+            PALETTES.clear();
+        }
+    }
+
+    /**
+     * Read the raw bytes of an ingot item's texture.
+     *
+     * @return The texture bytes, or null if the texture does not exist or cannot be read
+     */
+    private static byte[] loadIngotTextureBytes(ResourceManager resourceManager, Item ingotItem) {
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.RESOURCE_LOOKUP)) {
+            Optional<ResourceLocation> textureLocation = IngotTextureResolver.resolve(resourceManager, ingotItem);
+            if (textureLocation.isEmpty()) {
+                return null;
+            }
+
+            Optional<Resource> resource = resourceManager.getResource(textureLocation.get());
+            if (resource.isEmpty()) {
+                IngotTextureResolver.markMissing(ingotItem);
+                return null;
+            }
+            return readResource(textureLocation.get(), resource.get());
+        }
+    }
 
-                // NativeImage uses ABGR format
-                int r = color & 0xFF;
-                int g = (color >> 8) & 0xFF;
-                int b = (color >> 16) & 0xFF;
+    /**
+     * Read a resource fully, logging failures.
+     *
+     * @return The bytes, or null if the resource cannot be read
+     */
+    private static byte[] readResource(ResourceLocation location, Resource resource) {
+        try (InputStream stream = resource.open()) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            TFCAutoIngots.getLogger().debug("Failed to read texture {}: {}", location, e.getMessage());
+            return null;
+        }
+    }
 
-                totalR += r;
-                totalG += g;
-                totalB += b;
-                pixelCount++;
+    /**
+     * Extract the color mapping from an ingot item's texture. This is the only decode of the ingot, shared by all variants,
+     * and flat mappings skip it when the texture's palette is cached.
+     */
+    private static ColorMapping extractColorMapping(GenerationInput input) {
+        if (input.sourceBytes != null) {
+            try {
+                if (input.mode == RecolorMode.GRADIENT) {
+                    return ColorMapping.fromGradient(decoder.decode(input.sourceBytes, input.metalName).getPixels());
+                }
+                return ColorMapping.fromColor(getPalette(input.sourceBytes, input.metalName).getDominantColor());
+            } catch (IOException e) {
+                TFCAutoIngots.getLogger().debug("Using default color for '{}'", input.metalName);
             }
         }
 
-        if (pixelCount == 0) {
-            return Constants.DEFAULT_COLOR;
+        return ColorMapping.fromColor(Constants.DEFAULT_COLOR);
+    }
+
+    /**
+     * Get the palette of an ingot texture, analyzing it on first use.
+     * Palettes are cached by the texture's content, so metals sharing a texture and reloads that only change the
+     * template reuse them.
+     *
+     * @param metalName Metal the texture belongs to, attached to the timing events
+     */
+    private static ColorPalette getPalette(byte[] sourceBytes, String metalName) throws IOException {
+        String key = HexFormat.of().formatHex(TextureCache.digest(sourceBytes));
+        ColorPalette palette;
+        synchronized (PALETTES) {
+            palette = PALETTES.get(key);
+        }
+
+        if (palette != null) {
+            PipelineMetrics.Counter.PALETTE_HITS.increment();
+            return palette;
         }
 
-        return (0xFF << 24) | ((totalR / pixelCount) << 16) | ((totalG / pixelCount) << 8) | (totalB / pixelCount);
+        PipelineMetrics.Counter.PALETTE_MISSES.increment();
+        int[] pixels = decoder.decode(sourceBytes, metalName).getPixels();
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.PALETTE, metalName)) {
+            palette = ColorPalette.analyze(pixels);
+        }
+        synchronized (PALETTES) {
+            PALETTES.put(key, palette);
+        }
+        return palette;
     }
 
     /**
-     * Load the template texture.
+     * Load the raw bytes of a variant's template texture, falling back to TFC's own texture.
+     *
+     * @return The bytes, or null if neither exists
      */
-    private static NativeImage loadTemplate() throws IOException {
-        Optional<Resource> templateOpt = Minecraft.getInstance().getResourceManager().getResource(Constants.TEMPLATE_TEXTURE);
+    private static byte[] loadTemplateBytes(ResourceManager resourceManager, TextureVariant variant) throws IOException {
+        Optional<Resource> templateOpt = resourceManager.getResource(variant.getTemplate());
         if (!templateOpt.isPresent()) {
-            TFCAutoIngots.getLogger().debug("Template not found at {}, trying TFC fallback...", Constants.TEMPLATE_TEXTURE);
-            templateOpt = Minecraft.getInstance().getResourceManager().getResource(Constants.TFC_TEMPLATE_FALLBACK);
+            TFCAutoIngots.getLogger().debug("Template not found at {}, trying TFC fallback...", variant.getTemplate());
+            templateOpt = resourceManager.getResource(variant.getFallbackTemplate());
             if (!templateOpt.isPresent()) {
-                throw new IOException("Template texture not found at " + Constants.TEMPLATE_TEXTURE + " or " + Constants.TFC_TEMPLATE_FALLBACK);
+                return null;
             }
         }
 
         try (InputStream stream = templateOpt.get().open()) {
-            return NativeImage.read(stream);
+            return stream.readAllBytes();
         }
     }
 
     /**
-     * Calculate color mapping parameters from template and target colors.
+     * A claim on generating one metal, see {@link #beginFlight(String)}.
      */
-    private static ColorMapping calculateColorMapping(int templateColor, int targetColor) {
-        int templateR = (templateColor >> 16) & 0xFF;
-        int templateG = (templateColor >> 8) & 0xFF;
-        int templateB = templateColor & 0xFF;
-        
-        int targetR = (targetColor >> 16) & 0xFF;
-        int targetG = (targetColor >> 8) & 0xFF;
-        int targetB = targetColor & 0xFF;
-        
-        float templateBrightness = (templateR + templateG + templateB) / 3.0f;
-        
-        return new ColorMapping(targetR, targetG, targetB, templateBrightness);
-    }
+    public static class Flight {
+        private final String metalName;
+        private final CompletableFuture<Boolean> result;
+        private final boolean owner;
 
-    /**
-     * Apply recoloring to the template image.
-     */
-    private static void applyRecoloring(NativeImage template, NativeImage result, ColorMapping mapping) {
-        for (int y = 0; y < template.getHeight(); y++) {
-            for (int x = 0; x < template.getWidth(); x++) {
-                int pixel = template.getPixelRGBA(x, y);
-                int alpha = (pixel >> 24) & 0xFF;
-                
-                if (alpha < Constants.TRANSPARENCY_THRESHOLD) {
-                    result.setPixelRGBA(x, y, pixel);
-                    continue;
-                }
-                
-                // Extract original RGB (ABGR format)
-                int origR = pixel & 0xFF;
-                int origG = (pixel >> 8) & 0xFF;
-                int origB = (pixel >> 16) & 0xFF;
-                
-                // Calculate relative brightness compared to template average
-                float pixelBrightness = (origR + origG + origB) / 3.0f;
-                float brightnessFactor = mapping.templateBrightness > 0 ? pixelBrightness / mapping.templateBrightness : 1.0f;
-                
-                // Apply target color with preserved brightness variation
-                int newR = Math.min(255, Math.max(0, (int) (mapping.targetR * brightnessFactor)));
-                int newG = Math.min(255, Math.max(0, (int) (mapping.targetG * brightnessFactor)));
-                int newB = Math.min(255, Math.max(0, (int) (mapping.targetB * brightnessFactor)));
-                
-                // Convert back to ABGR format
-                int newPixel = (alpha << 24) | (newB << 16) | (newG << 8) | newR;
-                result.setPixelRGBA(x, y, newPixel);
+        Flight(String metalName, CompletableFuture<Boolean> result, boolean owner) {
+            this.metalName = metalName;
+            this.result = result;
+            this.owner = owner;
+        }
+
+        /**
+         * Whether this caller is responsible for generating the metal.
+         */
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * Finish an owned flight. A successful owner must register its texture before calling this.
+         */
+        public void complete(boolean success) {
+            if (owner) {
+                IN_FLIGHT.remove(metalName, result);
+                result.complete(success);
             }
         }
     }
 
     /**
-     * Load the TFC template texture and recolor it to match the target color.
-     * Preserves the pattern and lighting/shading, just changes the base color.
+     * Decodes a PNG into an ABGR raster.
      */
-    private static NativeImage recolorTemplateTexture(int targetColor) throws IOException {
-        try (NativeImage template = loadTemplate()) {
-            // Extract average color from template (for color mapping)
-            int templateColor = extractAverageColor(template);
-            
-            // Create new image with same dimensions
-            NativeImage result = new NativeImage(template.getWidth(), template.getHeight(), true);
-            
-            // Calculate color mapping
-            ColorMapping mapping = calculateColorMapping(templateColor, targetColor);
-            
-            // Apply recoloring
-            applyRecoloring(template, result, mapping);
-            
-            return result;
-        }
+    @FunctionalInterface
+    public interface Decoder {
+        /**
+         * @param metalName Metal whose texture is decoded, attached to the timing events, or null for templates
+         */
+        Raster decode(byte[] pngBytes, String metalName) throws IOException;
     }
 
     /**
-     * Helper class to hold color mapping parameters.
+     * Inputs for rendering one metal's textures, read from the resource manager up front.
      */
-    private static class ColorMapping {
-        final int targetR, targetG, targetB;
-        final float templateBrightness;
+    public static class GenerationInput {
+        final String metalName;
+        final Map<TextureVariant, TemplateModel> templates;
+        final byte[] sourceBytes;
+        final RecolorMode mode;
+        final boolean compact;
+        /** Hash of each variant's template, the source texture and the mode, also the archive keys */
+        final Map<TextureVariant, String> fingerprints;
+
+        GenerationInput(String metalName, Map<TextureVariant, TemplateModel> templates, byte[] sourceBytes, RecolorMode mode, boolean compact) {
+            this.metalName = metalName;
+            this.templates = templates;
+            this.sourceBytes = sourceBytes;
+            this.mode = mode;
+            this.compact = compact;
+            this.fingerprints = new HashMap<>();
+            for (Map.Entry<TextureVariant, TemplateModel> template : templates.entrySet()) {
+                fingerprints.put(template.getKey(), TextureCache.computeKey(template.getValue().getFingerprint(), sourceBytes, mode));
+            }
+        }
 
-        ColorMapping(int targetR, int targetG, int targetB, float templateBrightness) {
-            this.targetR = targetR;
-            this.targetG = targetG;
-            this.targetB = targetB;
-            this.templateBrightness = templateBrightness;
+        public String getMetalName() {
+            return metalName;
         }
     }
 }
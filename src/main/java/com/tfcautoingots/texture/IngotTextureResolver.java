@@ -0,0 +1,150 @@
+package com.tfcautoingots.texture;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.tfcautoingots.TFCAutoIngots;
+import com.tfcautoingots.util.TagExtractor;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.world.item.Item;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the texture an ingot item actually renders with by reading {@code layer0} from its item model,
+ * following parent models and texture variables. Items whose model can't be resolved fall back to the
+ * conventional {@code textures/item/<path>.png}.
+ * Results, including textures found to be missing, are remembered until the next resource reload,
+ * so each item's model is read once and known misses never reach the resource manager again. Items resolved together
+ * share the parsed models, so common parents such as {@code minecraft:item/generated} are read once per pass.
+ */
+public class IngotTextureResolver {
+    private static final String MODEL_DIRECTORY = "models/";
+    private static final String TEXTURE_DIRECTORY = "textures/";
+    private static final String LAYER_0 = "layer0";
+    /** Deeper chains than this are assumed to be cyclic */
+    private static final int MAX_PARENT_DEPTH = 16;
+    private static final Map<Item, Optional<ResourceLocation>> RESOLVED = new ConcurrentHashMap<>();
+
+    /**
+     * Resolve the texture of an ingot item.
+     *
+     * @return The texture location, e.g. {@code mymod:textures/item/metals/lead.png}, or empty if the texture is known to be missing
+     */
+    public static Optional<ResourceLocation> resolve(ResourceManager resourceManager, Item item) {
+        return resolve(resourceManager, item, new HashMap<>());
+    }
+
+    /**
+     * Resolve the textures of many ingot items in one pass.
+     *
+     * @return Item -> texture location, without items whose texture is known to be missing
+     */
+    public static Map<Item, ResourceLocation> resolveAll(ResourceManager resourceManager, Collection<Item> items) {
+        Map<ResourceLocation, Optional<JsonObject>> models = new HashMap<>();
+        Map<Item, ResourceLocation> textures = new HashMap<>();
+        for (Item item : items) {
+            resolve(resourceManager, item, models).ifPresent(texture -> textures.put(item, texture));
+        }
+        return textures;
+    }
+
+    /**
+     * Resolve the texture of an ingot item, falling back to the conventional location if its model is malformed.
+     *
+     * @param models Models parsed so far in this pass, empty for models that don't exist or can't be read
+     */
+    private static Optional<ResourceLocation> resolve(ResourceManager resourceManager, Item item, Map<ResourceLocation, Optional<JsonObject>> models) {
+        return RESOLVED.computeIfAbsent(item, key -> {
+            ResourceLocation texture;
+            try {
+                texture = resolveFromModel(resourceManager, item, models);
+            } catch (RuntimeException e) {
+                TFCAutoIngots.getLogger().debug("Failed to resolve the model of {}: {}", BuiltInRegistries.ITEM.getKey(item), e.getMessage());
+                texture = null;
+            }
+            return Optional.of(texture != null ? texture : TagExtractor.getIngotTextureLocation(item));
+        });
+    }
+
+    /**
+     * Record that the resolved texture of an item doesn't exist, so it isn't looked up again.
+     */
+    public static void markMissing(Item item) {
+        if (RESOLVED.put(item, Optional.empty()) != null) {
+            TFCAutoIngots.getLogger().debug("No texture found for {}", BuiltInRegistries.ITEM.getKey(item));
+        }
+    }
+
+    /**
+     * Forget all resolved textures, e.g. because resource packs changed.
+     */
+    public static void invalidate() {
+        RESOLVED.clear();
+    }
+
+    /**
+     * Read {@code layer0} from the item's model chain.
+     *
+     * @return The texture location, or null if the model or its layer can't be resolved
+     */
+    private static ResourceLocation resolveFromModel(ResourceManager resourceManager, Item item, Map<ResourceLocation, Optional<JsonObject>> models) {
+        ResourceLocation itemId = BuiltInRegistries.ITEM.getKey(item);
+        ResourceLocation model = ResourceLocation.fromNamespaceAndPath(itemId.getNamespace(), "item/" + itemId.getPath());
+
+        // Textures of child models override those of their parents
+        Map<String, String> textures = new HashMap<>();
+        for (int depth = 0; model != null && depth < MAX_PARENT_DEPTH; depth++) {
+            JsonObject json = models.computeIfAbsent(model, location -> Optional.ofNullable(readModel(resourceManager, location))).orElse(null);
+            if (json == null) {
+                break;
+            }
+
+            if (json.has("textures") && json.get("textures").isJsonObject()) {
+                for (Map.Entry<String, JsonElement> texture : json.getAsJsonObject("textures").entrySet()) {
+                    if (texture.getValue().isJsonPrimitive()) {
+                        textures.putIfAbsent(texture.getKey(), texture.getValue().getAsString());
+                    }
+                }
+            }
+            model = json.has("parent") && json.get("parent").isJsonPrimitive() ? ResourceLocation.tryParse(json.get("parent").getAsString()) : null;
+        }
+
+        String texture = textures.get(LAYER_0);
+        for (int depth = 0; texture != null && texture.startsWith("#") && depth < MAX_PARENT_DEPTH; depth++) {
+            texture = textures.get(texture.substring(1));
+        }
+        if (texture == null || texture.startsWith("#")) {
+            return null;
+        }
+
+        ResourceLocation sprite = ResourceLocation.tryParse(texture);
+        return sprite == null ? null : sprite.withPath(TEXTURE_DIRECTORY + sprite.getPath() + ".png");
+    }
+
+    private static JsonObject readModel(ResourceManager resourceManager, ResourceLocation model) {
+        ResourceLocation file = model.withPath(MODEL_DIRECTORY + model.getPath() + ".json");
+        Optional<Resource> resource = resourceManager.getResource(file);
+        if (resource.isEmpty()) {
+            return null;
+        }
+
+        try (Reader reader = resource.get().openAsReader()) {
+            JsonElement json = JsonParser.parseReader(reader);
+            return json.isJsonObject() ? json.getAsJsonObject() : null;
+        } catch (IOException | RuntimeException e) {
+            TFCAutoIngots.getLogger().debug("Failed to read model {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.tfcautoingots.texture;
+
+import com.tfcautoingots.metrics.PipelineMetrics;
+import com.tfcautoingots.texture.core.Raster;
+
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PNG decoding through STB, with accounting for the off-heap buffers involved.
+ * Decoded pixels are copied in bulk into a {@link Raster} and every native buffer
+ * is freed before returning, so nothing generated stays off-heap once a batch completes.
+ */
+public final class NativeMemory {
+    private static final int CHANNELS = 4;
+    private static final AtomicLong BYTES_HELD = new AtomicLong();
+    private static final AtomicLong PEAK_BYTES = new AtomicLong();
+
+    private NativeMemory() {}
+
+    /**
+     * Decode a PNG into an RGBA raster.
+     *
+     * @param metalName Metal whose texture is decoded, attached to the timing events, or null for templates
+     */
+    static Raster decode(byte[] pngBytes, String metalName) throws IOException {
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.DECODE, metalName)) {
+            return decodeTracked(pngBytes);
+        }
+    }
+
+    private static Raster decodeTracked(byte[] pngBytes) throws IOException {
+        ByteBuffer encoded = allocate(pngBytes.length);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            encoded.put(pngBytes).flip();
+            IntBuffer width = stack.mallocInt(1);
+            IntBuffer height = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+
+            ByteBuffer decoded = STBImage.stbi_load_from_memory(encoded, width, height, channels, CHANNELS);
+            if (decoded == null) {
+                throw new IOException("Could not decode image: " + STBImage.stbi_failure_reason());
+            }
+
+            long decodedSize = track(decoded.capacity());
+            try {
+                int[] pixels = new int[width.get(0) * height.get(0)];
+                // RGBA bytes read as little-endian ints give the ABGR packing used throughout
+                decoded.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(pixels);
+                return new Raster(width.get(0), height.get(0), pixels);
+            } finally {
+                STBImage.stbi_image_free(decoded);
+                release(decodedSize);
+            }
+        } finally {
+            free(encoded);
+        }
+    }
+
+    /**
+     * Bytes of native memory currently allocated by the generator.
+     */
+    public static long getBytesHeld() {
+        return BYTES_HELD.get();
+    }
+
+    /**
+     * Highest value {@link #getBytesHeld()} has reached this session.
+     */
+    public static long getPeakBytes() {
+        return PEAK_BYTES.get();
+    }
+
+    private static ByteBuffer allocate(int size) {
+        ByteBuffer buffer = MemoryUtil.memAlloc(size);
+        track(size);
+        return buffer;
+    }
+
+    private static void free(ByteBuffer buffer) {
+        long size = buffer.capacity();
+        MemoryUtil.memFree(buffer);
+        release(size);
+    }
+
+    private static long track(long size) {
+        PEAK_BYTES.accumulateAndGet(BYTES_HELD.addAndGet(size), Math::max);
+        return size;
+    }
+
+    private static void release(long size) {
+        BYTES_HELD.addAndGet(-size);
+    }
+}
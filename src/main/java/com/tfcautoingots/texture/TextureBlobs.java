@@ -0,0 +1,82 @@
+package com.tfcautoingots.texture;
+
+import com.tfcautoingots.texture.core.ColorMapping;
+import com.tfcautoingots.texture.core.TemplateModel;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed store of encoded textures.
+ * Metals whose textures end up byte-identical, either because their color mappings match or because the cache returned
+ * equal files, share a single array. Blobs are weakly referenced and disappear once no registered texture uses them.
+ */
+public final class TextureBlobs {
+    private static final Map<String, WeakReference<byte[]>> BY_CONTENT = new ConcurrentHashMap<>();
+    private static final Map<RenderKey, WeakReference<byte[]>> BY_MAPPING = new ConcurrentHashMap<>();
+
+    private TextureBlobs() {}
+
+    /**
+     * Get the shared texture for a template and mapping, rendering and encoding it only if no other metal has yet.
+     *
+     * @param metalName Metal the texture is rendered for, attached to the timing events, or null if rendered for serving
+     */
+    public static byte[] render(RenderKey key, String metalName) throws IOException {
+        byte[] pngBytes = dereference(BY_MAPPING.get(key));
+        if (pngBytes == null) {
+            pngBytes = intern(IngotTextureGenerator.encodeTexture(key.template, key.mapping, metalName));
+            BY_MAPPING.put(key, new WeakReference<>(pngBytes));
+        }
+        return pngBytes;
+    }
+
+    /**
+     * Get the shared array with the same content as the given texture, registering it if it is the first.
+     */
+    public static byte[] intern(byte[] pngBytes) {
+        String contentKey = HexFormat.of().formatHex(TextureCache.digest(pngBytes));
+        WeakReference<byte[]> reference = BY_CONTENT.compute(contentKey,
+            (key, existing) -> dereference(existing) != null ? existing : new WeakReference<>(pngBytes));
+        byte[] shared = reference.get();
+        return shared != null ? shared : pngBytes;
+    }
+
+    /**
+     * Drop index entries whose blobs are no longer used.
+     */
+    public static void purge() {
+        BY_CONTENT.values().removeIf(reference -> reference.get() == null);
+        BY_MAPPING.values().removeIf(reference -> reference.get() == null);
+    }
+
+    private static byte[] dereference(WeakReference<byte[]> reference) {
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Everything that determines a rendered texture: the template instance and the color mapping.
+     */
+    public static final class RenderKey {
+        private final TemplateModel template;
+        private final ColorMapping mapping;
+
+        public RenderKey(TemplateModel template, ColorMapping mapping) {
+            this.template = template;
+            this.mapping = mapping;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RenderKey key && template == key.template && mapping.equals(key.mapping);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(template) + mapping.hashCode();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.tfcautoingots.texture;
+
+import com.tfcautoingots.texture.core.RecolorMode;
+import com.tfcautoingots.util.Constants;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Cache keys of generated textures.
+ * A key hashes the template bytes, the source ingot texture bytes, the recolor mode and the recolor algorithm version, so a
+ * stored texture stops matching as soon as any of its inputs change. Textures are stored in the
+ * {@link com.tfcautoingots.client.TextureArchive}.
+ */
+public class TextureCache {
+    /**
+     * Compute the cache key for a texture.
+     *
+     * @param templateFingerprint SHA-256 of the template texture bytes, see {@link #digest(byte[])}
+     * @param sourceBytes Raw bytes of the ingot texture, or null if the ingot has no texture
+     * @param mode How the texture's colors are derived from the ingot texture
+     * @return Hex-encoded SHA-256 of all inputs
+     */
+    public static String computeKey(byte[] templateFingerprint, byte[] sourceBytes, RecolorMode mode) {
+        MessageDigest digest = newDigest();
+        digest.update(ByteBuffer.allocate(4).putInt(Constants.RECOLOR_ALGORITHM_VERSION).array());
+        updateLengthPrefixed(digest, mode.name().getBytes(StandardCharsets.UTF_8));
+        updateLengthPrefixed(digest, templateFingerprint);
+        updateLengthPrefixed(digest, sourceBytes);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * SHA-256 of the given bytes.
+     */
+    public static byte[] digest(byte[] bytes) {
+        return newDigest().digest(bytes);
+    }
+
+    private static void updateLengthPrefixed(MessageDigest digest, byte[] bytes) {
+        int length = bytes != null ? bytes.length : -1;
+        digest.update(ByteBuffer.allocate(4).putInt(length).array());
+        if (bytes != null) {
+            digest.update(bytes);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.tfcautoingots.texture;
+
+import com.tfcautoingots.TFCAutoIngots;
+import com.tfcautoingots.util.Constants;
+
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.List;
+
+/**
+ * A per-metal texture TFC looks up under {@code tfc:textures/block/metal/<variant>/<metal>.png}, generated by recoloring
+ * its own template. All variants of a metal are rendered from a single decode of the ingot texture.
+ */
+public final class TextureVariant {
+    /** Smooth metal, used by ingot piles and other worked metal. Generation of a metal fails if this one does. */
+    public static final TextureVariant SMOOTH = new TextureVariant("smooth", Constants.TEXTURE_PATH_PREFIX,
+        Constants.TEMPLATE_TEXTURE, Constants.TFC_TEMPLATE_FALLBACK);
+
+    /** Solid metal block */
+    public static final TextureVariant BLOCK = new TextureVariant("block", "textures/block/metal/block/",
+        ResourceLocation.fromNamespaceAndPath(TFCAutoIngots.MODID, "textures/block/metal/block/template.png"),
+        ResourceLocation.fromNamespaceAndPath(Constants.TFC_NAMESPACE, "textures/block/metal/block/copper.png"));
+
+    /** Every registered variant, the primary one first */
+    public static final List<TextureVariant> ALL = List.of(SMOOTH, BLOCK);
+
+    private final String name;
+    private final String pathPrefix;
+    private final ResourceLocation template;
+    private final ResourceLocation fallbackTemplate;
+
+    private TextureVariant(String name, String pathPrefix, ResourceLocation template, ResourceLocation fallbackTemplate) {
+        this.name = name;
+        this.pathPrefix = pathPrefix;
+        this.template = template;
+        this.fallbackTemplate = fallbackTemplate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Directory of the variant's textures in the TFC namespace, with a trailing slash.
+     */
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    /**
+     * Template shipped with this mod or a resource pack.
+     */
+    public ResourceLocation getTemplate() {
+        return template;
+    }
+
+    /**
+     * TFC texture used as the template when {@link #getTemplate()} is missing.
+     */
+    public ResourceLocation getFallbackTemplate() {
+        return fallbackTemplate;
+    }
+
+    /**
+     * Path of a metal's texture in the TFC namespace, e.g. {@code textures/block/metal/smooth/lead.png}.
+     */
+    public String getPath(String metalName) {
+        return pathPrefix + metalName + ".png";
+    }
+
+    /**
+     * Full location of a metal's texture.
+     */
+    public ResourceLocation getLocation(String metalName) {
+        return ResourceLocation.fromNamespaceAndPath(Constants.TFC_NAMESPACE, getPath(metalName));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tfcautoingots.texture.core;
+
+/**
+ * Color constants of the texture pipeline. Kept free of game classes so the core compiles on its own;
+ * {@link com.tfcautoingots.util.Constants} re-exports them for the rest of the mod.
+ */
+public final class ColorConstants {
+    private ColorConstants() {}
+
+    /** Default gray color used when color extraction fails */
+    public static final int DEFAULT_COLOR = 0xFFAAAAAA;
+
+    /** Transparency threshold for pixel processing (0-255) */
+    public static final int TRANSPARENCY_THRESHOLD = 128;
+}
@@ -0,0 +1,128 @@
+package com.tfcautoingots.texture.core;
+
+import java.util.Arrays;
+
+/**
+ * Per-metal color mapping parameters. Together with a {@link TemplateModel} this fully determines a generated texture.
+ * A mapping either scales a single target color by the template's brightness, or holds a gradient table mapping each
+ * template tone to a color.
+ */
+public class ColorMapping {
+    /** Number of tone levels in a gradient table */
+    public static final int TONE_LEVELS = 256;
+
+    final int targetR, targetG, targetB;
+    /** Tone level -> color in ABGR format without alpha, or null for a flat mapping */
+    final int[] gradient;
+
+    ColorMapping(int targetR, int targetG, int targetB, int[] gradient) {
+        this.targetR = targetR;
+        this.targetG = targetG;
+        this.targetB = targetB;
+        this.gradient = gradient;
+    }
+
+    /**
+     * Calculate color mapping parameters for a target color.
+     *
+     * @param targetColor Target color in ARGB format
+     */
+    public static ColorMapping fromColor(int targetColor) {
+        int targetR = (targetColor >> 16) & 0xFF;
+        int targetG = (targetColor >> 8) & 0xFF;
+        int targetB = targetColor & 0xFF;
+
+        return new ColorMapping(targetR, targetG, targetB, null);
+    }
+
+    /**
+     * Calculate the color mapping for an ingot texture in the given mode.
+     * Flat mappings use the dominant color of the texture's {@link ColorPalette}.
+     *
+     * @param sourcePixels Ingot texture pixels in ABGR format
+     */
+    public static ColorMapping fromSource(int[] sourcePixels, RecolorMode mode) {
+        return mode == RecolorMode.GRADIENT ? fromGradient(sourcePixels) : fromColor(ColorPalette.analyze(sourcePixels).getDominantColor());
+    }
+
+    /**
+     * Build a gradient table from the luminance histogram of an ingot texture.
+     * Tone level {@code t} maps to the average color of the source pixels at the same luminance percentile, so the
+     * template's darkest tones take the ingot's shadow colors and its lightest tones the ingot's highlights.
+     *
+     * @param sourcePixels Ingot texture pixels in ABGR format
+     * @return A gradient mapping, or a flat mapping of {@link ColorConstants#DEFAULT_COLOR} if every pixel is transparent
+     */
+    public static ColorMapping fromGradient(int[] sourcePixels) {
+        int[] counts = new int[TONE_LEVELS];
+        int[] sumR = new int[TONE_LEVELS];
+        int[] sumG = new int[TONE_LEVELS];
+        int[] sumB = new int[TONE_LEVELS];
+        int total = 0;
+        for (int pixel : sourcePixels) {
+            if ((pixel >>> 24) < ColorConstants.TRANSPARENCY_THRESHOLD) {
+                continue;
+            }
+
+            int r = pixel & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = (pixel >> 16) & 0xFF;
+            int luminance = luminance(r, g, b);
+            counts[luminance]++;
+            sumR[luminance] += r;
+            sumG[luminance] += g;
+            sumB[luminance] += b;
+            total++;
+        }
+
+        if (total == 0) {
+            return fromColor(ColorConstants.DEFAULT_COLOR);
+        }
+
+        // Both the tone levels and the luminance buckets are walked in ascending order, so one pass finds every percentile
+        int[] gradient = new int[TONE_LEVELS];
+        int bucket = 0;
+        long below = 0;
+        for (int level = 0; level < TONE_LEVELS; level++) {
+            // Percentile at the middle of this tone level, scaled by TONE_LEVELS to stay in integers
+            long percentile = (2L * level + 1) * total;
+            while ((below + counts[bucket]) * 2 * TONE_LEVELS <= percentile) {
+                below += counts[bucket];
+                bucket++;
+            }
+
+            int count = counts[bucket];
+            gradient[level] = ((sumB[bucket] / count) << 16) | ((sumG[bucket] / count) << 8) | (sumR[bucket] / count);
+        }
+
+        int averageColor = PixelKernels.averageColor(sourcePixels);
+        return new ColorMapping((averageColor >> 16) & 0xFF, (averageColor >> 8) & 0xFF, averageColor & 0xFF, gradient);
+    }
+
+    /**
+     * Estimated heap bytes held by this mapping, including its gradient table.
+     */
+    public long getHeldBytes() {
+        // Object header, three ints and a reference, plus the array header and its elements
+        return 32 + (gradient != null ? 16 + 4L * gradient.length : 0);
+    }
+
+    /**
+     * Integer luminance of a color, 0-255.
+     */
+    static int luminance(int r, int g, int b) {
+        return (77 * r + 150 * g + 29 * b) >> 8;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ColorMapping mapping
+            && targetR == mapping.targetR && targetG == mapping.targetG && targetB == mapping.targetB
+            && Arrays.equals(gradient, mapping.gradient);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(gradient) + ((targetR << 16) | (targetG << 8) | targetB);
+    }
+}
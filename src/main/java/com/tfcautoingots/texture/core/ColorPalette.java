@@ -0,0 +1,296 @@
+package com.tfcautoingots.texture.core;
+
+import java.util.Arrays;
+
+/**
+ * Dominant color and small palette of a texture, found over a color histogram.
+ * The palette comes from a median cut. The dominant color is the mode of the histogram, found by mean shift from the
+ * overall mean: outlines, anti-aliased edges and specular highlights far from the body color fall out of the window
+ * instead of pulling the result towards them, while a smooth shading gradient settles near its middle.
+ * <p>
+ * Analysis is one pass over the pixels into fixed-size histograms reused per thread, followed by work over the
+ * occupied histogram bins only, so it allocates nothing but the result.
+ */
+public final class ColorPalette {
+    /** Maximum number of palette entries */
+    public static final int MAX_COLORS = 4;
+    /** Histogram resolution per channel in bits */
+    private static final int CHANNEL_BITS = 4;
+    private static final int BINS = 1 << (3 * CHANNEL_BITS);
+    /** Distance in RGB space within which colors count towards the dominant color */
+    private static final int MODE_RADIUS = 64;
+    private static final int MODE_ITERATIONS = 16;
+    private static final ThreadLocal<Histogram> HISTOGRAM = ThreadLocal.withInitial(Histogram::new);
+
+    /** Palette colors in ARGB format, most common first */
+    private final int[] colors;
+    private final int dominantColor;
+
+    private ColorPalette(int[] colors, int dominantColor) {
+        this.colors = colors;
+        this.dominantColor = dominantColor;
+    }
+
+    /**
+     * Analyze the pixels at or above the transparency threshold. Partially transparent pixels, usually anti-aliased
+     * edges, count in proportion to their alpha.
+     *
+     * @param pixels Pixels in ABGR format
+     * @return The palette, holding only {@link ColorConstants#DEFAULT_COLOR} if every pixel is transparent
+     */
+    public static ColorPalette analyze(int[] pixels) {
+        Histogram histogram = HISTOGRAM.get();
+        try {
+            histogram.add(pixels);
+            if (histogram.occupied == 0) {
+                return new ColorPalette(new int[] {ColorConstants.DEFAULT_COLOR}, ColorConstants.DEFAULT_COLOR);
+            }
+            int[] colors = histogram.medianCut();
+            return new ColorPalette(colors, histogram.findMode(colors[0]));
+        } finally {
+            histogram.clear();
+        }
+    }
+
+    /**
+     * The color of the densest part of the histogram in ARGB format, usually the ingot's body color.
+     */
+    public int getDominantColor() {
+        return dominantColor;
+    }
+
+    /**
+     * Palette colors in ARGB format, most common first.
+     */
+    public int[] getColors() {
+        return colors.clone();
+    }
+
+    /**
+     * Number of palette entries, at most {@link #MAX_COLORS}.
+     */
+    public int size() {
+        return colors.length;
+    }
+
+    /**
+     * Reusable histogram storage. Only bins listed in {@code occupiedBins} are non-zero between analyses.
+     */
+    private static final class Histogram {
+        final long[] weight = new long[BINS];
+        final long[] sumR = new long[BINS];
+        final long[] sumG = new long[BINS];
+        final long[] sumB = new long[BINS];
+        /** Occupied bins; each box of the median cut is a contiguous range of this array */
+        final int[] occupiedBins = new int[BINS];
+        /** Sort keys of the box being split, the channel value above the bin index */
+        final int[] sortKeys = new int[BINS];
+        final int[] boxStart = new int[MAX_COLORS];
+        final int[] boxEnd = new int[MAX_COLORS];
+        final long[] boxWeights = new long[MAX_COLORS];
+        int occupied;
+
+        void add(int[] pixels) {
+            for (int pixel : pixels) {
+                int alpha = pixel >>> 24;
+                if (alpha < ColorConstants.TRANSPARENCY_THRESHOLD) {
+                    continue;
+                }
+
+                // ABGR format
+                int r = pixel & 0xFF;
+                int g = (pixel >> 8) & 0xFF;
+                int b = (pixel >> 16) & 0xFF;
+                int bin = binOf(r, g, b);
+                if (weight[bin] == 0) {
+                    occupiedBins[occupied++] = bin;
+                }
+                weight[bin] += alpha;
+                sumR[bin] += (long) r * alpha;
+                sumG[bin] += (long) g * alpha;
+                sumB[bin] += (long) b * alpha;
+            }
+        }
+
+        int[] medianCut() {
+            int boxes = 1;
+            boxStart[0] = 0;
+            boxEnd[0] = occupied;
+
+            while (boxes < MAX_COLORS) {
+                // Split the heaviest box that still spans more than one bin
+                int target = -1;
+                long targetWeight = 0;
+                for (int box = 0; box < boxes; box++) {
+                    long boxWeight = boxWeight(box);
+                    if (boxEnd[box] - boxStart[box] > 1 && boxWeight > targetWeight) {
+                        target = box;
+                        targetWeight = boxWeight;
+                    }
+                }
+                if (target < 0) {
+                    break;
+                }
+
+                int split = split(boxStart[target], boxEnd[target], targetWeight);
+                boxStart[boxes] = split;
+                boxEnd[boxes] = boxEnd[target];
+                boxEnd[target] = split;
+                boxes++;
+            }
+
+            int[] colors = new int[boxes];
+            long[] weights = boxWeights;
+            for (int box = 0; box < boxes; box++) {
+                long totalWeight = 0, totalR = 0, totalG = 0, totalB = 0;
+                for (int i = boxStart[box]; i < boxEnd[box]; i++) {
+                    int bin = occupiedBins[i];
+                    totalWeight += weight[bin];
+                    totalR += sumR[bin];
+                    totalG += sumG[bin];
+                    totalB += sumB[bin];
+                }
+
+                // Insertion by weight, heaviest first
+                int slot = box;
+                while (slot > 0 && weights[slot - 1] < totalWeight) {
+                    colors[slot] = colors[slot - 1];
+                    weights[slot] = weights[slot - 1];
+                    slot--;
+                }
+                colors[slot] = (0xFF << 24) | ((int) (totalR / totalWeight) << 16) | ((int) (totalG / totalWeight) << 8) | (int) (totalB / totalWeight);
+                weights[slot] = totalWeight;
+            }
+            return colors;
+        }
+
+        /**
+         * Mean shift over the occupied bins, starting from the weighted mean of all of them: move to the weighted mean of
+         * the bins within {@link #MODE_RADIUS} until it stops moving. Median cut boxes hold equal weight by construction,
+         * so the heaviest of them says nothing about where most pixels are.
+         *
+         * @param fallback Color in ARGB format to use if no bin lies near the overall mean, e.g. two far apart colors
+         * @return The mode in ARGB format
+         */
+        int findMode(int fallback) {
+            long totalWeight = 0, totalR = 0, totalG = 0, totalB = 0;
+            for (int i = 0; i < occupied; i++) {
+                int bin = occupiedBins[i];
+                totalWeight += weight[bin];
+                totalR += sumR[bin];
+                totalG += sumG[bin];
+                totalB += sumB[bin];
+            }
+            int r = (int) (totalR / totalWeight), g = (int) (totalG / totalWeight), b = (int) (totalB / totalWeight);
+
+            for (int iteration = 0; iteration < MODE_ITERATIONS; iteration++) {
+                long windowWeight = 0, windowR = 0, windowG = 0, windowB = 0;
+                for (int i = 0; i < occupied; i++) {
+                    int bin = occupiedBins[i];
+                    long binWeight = weight[bin];
+                    int dr = (int) (sumR[bin] / binWeight) - r;
+                    int dg = (int) (sumG[bin] / binWeight) - g;
+                    int db = (int) (sumB[bin] / binWeight) - b;
+                    if (dr * dr + dg * dg + db * db <= MODE_RADIUS * MODE_RADIUS) {
+                        windowWeight += binWeight;
+                        windowR += sumR[bin];
+                        windowG += sumG[bin];
+                        windowB += sumB[bin];
+                    }
+                }
+                if (windowWeight == 0) {
+                    return fallback;
+                }
+
+                int nextR = (int) (windowR / windowWeight), nextG = (int) (windowG / windowWeight), nextB = (int) (windowB / windowWeight);
+                if (nextR == r && nextG == g && nextB == b) {
+                    break;
+                }
+                r = nextR;
+                g = nextG;
+                b = nextB;
+            }
+            return (0xFF << 24) | (r << 16) | (g << 8) | b;
+        }
+
+        /**
+         * Sort a box's bins along its widest channel and split it where half its weight lies on each side.
+         *
+         * @return Index of the first bin of the second half, strictly inside the box
+         */
+        int split(int start, int end, long boxWeight) {
+            int minR = Integer.MAX_VALUE, minG = Integer.MAX_VALUE, minB = Integer.MAX_VALUE;
+            int maxR = -1, maxG = -1, maxB = -1;
+            for (int i = start; i < end; i++) {
+                int bin = occupiedBins[i];
+                int r = binR(bin), g = binG(bin), b = binB(bin);
+                minR = Math.min(minR, r);
+                maxR = Math.max(maxR, r);
+                minG = Math.min(minG, g);
+                maxG = Math.max(maxG, g);
+                minB = Math.min(minB, b);
+                maxB = Math.max(maxB, b);
+            }
+
+            int rangeR = maxR - minR, rangeG = maxG - minG, rangeB = maxB - minB;
+            int shift = rangeG >= rangeR && rangeG >= rangeB ? CHANNEL_BITS : rangeR >= rangeB ? 0 : 2 * CHANNEL_BITS;
+            for (int i = start; i < end; i++) {
+                int bin = occupiedBins[i];
+                sortKeys[i] = (((bin >> shift) & ((1 << CHANNEL_BITS) - 1)) << (3 * CHANNEL_BITS)) | bin;
+            }
+            Arrays.sort(sortKeys, start, end);
+
+            long half = boxWeight / 2;
+            long below = 0;
+            int split = start + 1;
+            for (int i = start; i < end; i++) {
+                int bin = sortKeys[i] & (BINS - 1);
+                occupiedBins[i] = bin;
+                if (below < half) {
+                    below += weight[bin];
+                    split = i + 1;
+                }
+            }
+            return Math.min(split, end - 1);
+        }
+
+        long boxWeight(int box) {
+            long total = 0;
+            for (int i = boxStart[box]; i < boxEnd[box]; i++) {
+                total += weight[occupiedBins[i]];
+            }
+            return total;
+        }
+
+        void clear() {
+            for (int i = 0; i < occupied; i++) {
+                int bin = occupiedBins[i];
+                weight[bin] = 0;
+                sumR[bin] = 0;
+                sumG[bin] = 0;
+                sumB[bin] = 0;
+            }
+            occupied = 0;
+        }
+    }
+
+    /**
+     * Histogram bin of a color: the top bits of red, green and blue, red lowest.
+     */
+    private static int binOf(int r, int g, int b) {
+        int drop = 8 - CHANNEL_BITS;
+        return (r >> drop) | ((g >> drop) << CHANNEL_BITS) | ((b >> drop) << (2 * CHANNEL_BITS));
+    }
+
+    private static int binR(int bin) {
+        return bin & ((1 << CHANNEL_BITS) - 1);
+    }
+
+    private static int binG(int bin) {
+        return (bin >> CHANNEL_BITS) & ((1 << CHANNEL_BITS) - 1);
+    }
+
+    private static int binB(int bin) {
+        return (bin >> (2 * CHANNEL_BITS)) & ((1 << CHANNEL_BITS) - 1);
+    }
+}
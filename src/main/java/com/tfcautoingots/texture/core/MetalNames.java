@@ -0,0 +1,35 @@
+package com.tfcautoingots.texture.core;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Derives metal names from ingot item IDs.
+ */
+public final class MetalNames {
+    private static final Pattern INGOT_PATTERN = Pattern.compile("(?:(.+)_ingot|ingot_(.+))");
+
+    private MetalNames() {}
+
+    /**
+     * Extract metal name from item ID path (e.g., lead_ingot -> lead).
+     */
+    public static String fromItemPath(String path) {
+        Matcher matcher = INGOT_PATTERN.matcher(path);
+        if (matcher.find()) {
+            String metalName = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            
+            if (metalName != null) {
+                // Handle common prefixes
+                if (metalName.startsWith("double_")) {
+                    metalName = metalName.substring(7);
+                }
+                if (metalName.startsWith("raw_")) {
+                    metalName = metalName.substring(4);
+                }
+                return metalName;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package com.tfcautoingots.texture.core;
+
+/**
+ * Bulk pixel operations on ABGR rasters.
+ * Uses the Vector API when the JVM was started with {@code --add-modules=jdk.incubator.vector},
+ * and an equivalent scalar loop otherwise. Both produce bit-identical results.
+ */
+public class PixelKernels {
+    private static final PixelKernels INSTANCE = selectImplementation();
+
+    /**
+     * Average color of the pixels at or above the transparency threshold.
+     *
+     * @param pixels Pixels in ABGR format
+     * @return The average in ARGB format, or {@link ColorConstants#DEFAULT_COLOR} if every pixel is transparent
+     */
+    public static int averageColor(int[] pixels) {
+        return INSTANCE.computeAverageColor(pixels);
+    }
+
+    /**
+     * Recolor template pixels by scaling the target color with per-pixel brightness factors.
+     * Pixels below the transparency threshold are copied unchanged.
+     *
+     * @param templatePixels Template pixels in ABGR format
+     * @param opaqueMask True for pixels at or above the transparency threshold
+     * @param brightnessFactors Brightness of each pixel relative to the template average
+     * @param targetR Red channel of the target color
+     * @param targetG Green channel of the target color
+     * @param targetB Blue channel of the target color
+     * @param result Destination for the recolored pixels in ABGR format
+     */
+    public static void recolor(int[] templatePixels, boolean[] opaqueMask, float[] brightnessFactors,
+                               int targetR, int targetG, int targetB, int[] result) {
+        INSTANCE.applyRecoloring(templatePixels, opaqueMask, brightnessFactors, targetR, targetG, targetB, result);
+    }
+
+    /**
+     * Recolor template pixels through a gradient table, one lookup per pixel.
+     * Pixels below the transparency threshold are copied unchanged.
+     *
+     * @param templatePixels Template pixels in ABGR format
+     * @param opaqueMask True for pixels at or above the transparency threshold
+     * @param toneLevels Tone level of each template pixel, an unsigned index into the gradient
+     * @param gradient Tone level -> color in ABGR format without alpha, see {@link ColorMapping#fromGradient}
+     * @param result Destination for the recolored pixels in ABGR format
+     */
+    public static void recolorGradient(int[] templatePixels, boolean[] opaqueMask, byte[] toneLevels, int[] gradient, int[] result) {
+        INSTANCE.applyGradient(templatePixels, opaqueMask, toneLevels, gradient, result);
+    }
+
+    /**
+     * Name of the active implementation, for logging.
+     */
+    public static String getImplementationName() {
+        return INSTANCE.getName();
+    }
+
+    int computeAverageColor(int[] pixels) {
+        int totalR = 0, totalG = 0, totalB = 0, pixelCount = 0;
+
+        for (int pixel : pixels) {
+            if ((pixel >>> 24) < ColorConstants.TRANSPARENCY_THRESHOLD) {
+                continue;
+            }
+
+            totalR += pixel & 0xFF;
+            totalG += (pixel >> 8) & 0xFF;
+            totalB += (pixel >> 16) & 0xFF;
+            pixelCount++;
+        }
+
+        return toAverageColor(totalR, totalG, totalB, pixelCount);
+    }
+
+    void applyRecoloring(int[] templatePixels, boolean[] opaqueMask, float[] brightnessFactors,
+                         int targetR, int targetG, int targetB, int[] result) {
+        recolorRange(templatePixels, opaqueMask, brightnessFactors, targetR, targetG, targetB, result, 0);
+    }
+
+    void applyGradient(int[] templatePixels, boolean[] opaqueMask, byte[] toneLevels, int[] gradient, int[] result) {
+        for (int i = 0; i < templatePixels.length; i++) {
+            int pixel = templatePixels[i];
+            result[i] = opaqueMask[i] ? (pixel & 0xFF000000) | gradient[toneLevels[i] & 0xFF] : pixel;
+        }
+    }
+
+    String getName() {
+        return "scalar";
+    }
+
+    /**
+     * Scalar recolor loop from the given index to the end of the arrays.
+     */
+    static void recolorRange(int[] templatePixels, boolean[] opaqueMask, float[] brightnessFactors,
+                             int targetR, int targetG, int targetB, int[] result, int start) {
+        for (int i = start; i < templatePixels.length; i++) {
+            int pixel = templatePixels[i];
+            if (!opaqueMask[i]) {
+                result[i] = pixel;
+                continue;
+            }
+
+            float brightnessFactor = brightnessFactors[i];
+            int newR = Math.min(255, Math.max(0, (int) (targetR * brightnessFactor)));
+            int newG = Math.min(255, Math.max(0, (int) (targetG * brightnessFactor)));
+            int newB = Math.min(255, Math.max(0, (int) (targetB * brightnessFactor)));
+
+            result[i] = (pixel & 0xFF000000) | (newB << 16) | (newG << 8) | newR;
+        }
+    }
+
+    static int toAverageColor(int totalR, int totalG, int totalB, int pixelCount) {
+        if (pixelCount == 0) {
+            return ColorConstants.DEFAULT_COLOR;
+        }
+        return (0xFF << 24) | ((totalR / pixelCount) << 16) | ((totalG / pixelCount) << 8) | (totalB / pixelCount);
+    }
+
+    private static PixelKernels selectImplementation() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded reflectively so the incubator classes are never touched when the module is absent
+                return (PixelKernels) Class.forName("com.tfcautoingots.texture.core.VectorPixelKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+            } catch (ReflectiveOperationException | LinkageError | IllegalStateException e) {
+                // Not readable from this module layer or unsupported lane shapes, fall back to scalar loops
+            }
+        }
+        return new PixelKernels();
+    }
+}
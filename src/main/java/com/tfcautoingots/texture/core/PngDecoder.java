@@ -0,0 +1,58 @@
+package com.tfcautoingots.texture.core;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * PNG decoding through ImageIO, for running the pipeline outside the game where STB's natives aren't loaded.
+ * Samples are read from the raster as stored, without the color space conversion {@link BufferedImage#getRGB} applies to
+ * gray images, and expanded like STB does: gray to equal RGB, 16-bit samples to their high byte, opaque if there is no
+ * alpha channel.
+ */
+public final class PngDecoder {
+    private PngDecoder() {}
+
+    /**
+     * Decode a PNG into an ABGR raster.
+     */
+    public static Raster decode(byte[] pngBytes) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(pngBytes));
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = new int[width * height];
+        if (image.getColorModel() instanceof IndexColorModel palette) {
+            // Palette and low bit depth gray images hold sRGB entries, already scaled to 8 bits
+            int[] indices = image.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = abgr(palette.getRed(indices[i]), palette.getGreen(indices[i]), palette.getBlue(indices[i]), palette.getAlpha(indices[i]));
+            }
+            return new Raster(width, height, pixels);
+        }
+
+        WritableRaster raster = image.getRaster();
+        int bands = raster.getNumBands();
+        int shift = Math.max(0, image.getColorModel().getComponentSize(0) - 8);
+        int[] samples = raster.getPixels(0, 0, width, height, (int[]) null);
+        for (int i = 0; i < pixels.length; i++) {
+            int offset = i * bands;
+            int r = samples[offset] >> shift;
+            int g = bands >= 3 ? samples[offset + 1] >> shift : r;
+            int b = bands >= 3 ? samples[offset + 2] >> shift : r;
+            int a = bands == 2 || bands == 4 ? samples[offset + bands - 1] >> shift : 0xFF;
+            pixels[i] = abgr(r, g, b, a);
+        }
+        return new Raster(width, height, pixels);
+    }
+
+    private static int abgr(int r, int g, int b, int a) {
+        return (a << 24) | (b << 16) | (g << 8) | r;
+    }
+}
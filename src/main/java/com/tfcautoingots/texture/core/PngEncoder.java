@@ -0,0 +1,89 @@
+package com.tfcautoingots.texture.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal PNG encoder for 8-bit RGBA rasters.
+ * Writes a single IDAT chunk with unfiltered scanlines, which is all generated textures need.
+ */
+public final class PngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BIT_DEPTH = 8;
+    private static final int COLOR_TYPE_RGBA = 6;
+    private static final int FILTER_NONE = 0;
+
+    private PngEncoder() {}
+
+    /**
+     * Encode a raster as PNG.
+     */
+    public static byte[] encode(Raster raster) {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int[] pixels = raster.getPixels();
+
+        // Scanlines are a filter type byte followed by the row's RGBA bytes
+        byte[] scanlines = new byte[height * (1 + width * 4)];
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            scanlines[offset++] = FILTER_NONE;
+            int rowStart = y * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[rowStart + x];
+                scanlines[offset++] = (byte) pixel;
+                scanlines[offset++] = (byte) (pixel >> 8);
+                scanlines[offset++] = (byte) (pixel >> 16);
+                scanlines[offset++] = (byte) (pixel >>> 24);
+            }
+        }
+
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream(scanlines.length / 2 + 64);
+            DataOutputStream output = new DataOutputStream(png);
+            output.write(SIGNATURE);
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+            DataOutputStream headerOutput = new DataOutputStream(header);
+            headerOutput.writeInt(width);
+            headerOutput.writeInt(height);
+            headerOutput.writeByte(BIT_DEPTH);
+            headerOutput.writeByte(COLOR_TYPE_RGBA);
+            headerOutput.writeByte(0); // compression
+            headerOutput.writeByte(0); // filter
+            headerOutput.writeByte(0); // interlace
+            writeChunk(output, "IHDR", header.toByteArray());
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(scanlines.length / 2);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            try (DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(compressed, deflater)) {
+                deflaterOutput.write(scanlines);
+            } finally {
+                deflater.end();
+            }
+            writeChunk(output, "IDAT", compressed.toByteArray());
+            writeChunk(output, "IEND", new byte[0]);
+            return png.toByteArray();
+        } catch (IOException e) {
+            // In-memory streams don't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeChunk(DataOutputStream output, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        output.writeInt(data.length);
+        output.write(typeBytes);
+        output.write(data);
+        output.writeInt((int) crc.getValue());
+    }
+}
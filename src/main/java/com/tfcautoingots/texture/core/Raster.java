@@ -0,0 +1,32 @@
+package com.tfcautoingots.texture.core;
+
+/**
+ * A decoded image as a contiguous array of pixels in ABGR format, row by row.
+ * ABGR is the in-memory layout of RGBA bytes read as little-endian ints, the same packing NativeImage uses.
+ */
+public class Raster {
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    public Raster(int width, int height, int[] pixels) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " pixels but got " + pixels.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+}
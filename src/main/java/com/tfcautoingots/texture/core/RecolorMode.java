@@ -0,0 +1,11 @@
+package com.tfcautoingots.texture.core;
+
+/**
+ * How a metal's colors are derived from its ingot texture.
+ */
+public enum RecolorMode {
+    /** Scale the ingot's average color by each template pixel's brightness */
+    FLAT,
+    /** Map the template's dark, mid and light tones to the ingot's own colors at the same tones through a lookup table */
+    GRADIENT
+}
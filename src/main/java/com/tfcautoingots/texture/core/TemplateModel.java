@@ -0,0 +1,130 @@
+package com.tfcautoingots.texture.core;
+
+/**
+ * Decoded and preprocessed recolor template.
+ * Everything that only depends on the template is computed once here, so recoloring a metal
+ * is a single pass over primitive arrays.
+ */
+public class TemplateModel {
+    private final int width;
+    private final int height;
+    private final byte[] fingerprint;
+    /** Original template pixels in ABGR format, copied as-is where the mask is clear */
+    private final int[] pixels;
+    /** True for pixels that are recolored, false for (mostly) transparent pixels */
+    private final boolean[] opaqueMask;
+    /** Brightness of each pixel relative to the template average */
+    private final float[] brightnessFactors;
+    /** Luminance percentile of each pixel among the opaque pixels, as an unsigned gradient tone level */
+    private final byte[] toneLevels;
+    private final int averageColor;
+
+    private TemplateModel(int width, int height, byte[] fingerprint, int[] pixels, boolean[] opaqueMask, float[] brightnessFactors,
+                          byte[] toneLevels, int averageColor) {
+        this.width = width;
+        this.height = height;
+        this.fingerprint = fingerprint;
+        this.pixels = pixels;
+        this.opaqueMask = opaqueMask;
+        this.brightnessFactors = brightnessFactors;
+        this.toneLevels = toneLevels;
+        this.averageColor = averageColor;
+    }
+
+    /**
+     * Precompute the mask, brightness factors and tone levels of a decoded template.
+     *
+     * @param template The decoded template texture
+     * @param fingerprint Hash of the template's encoded bytes, used as part of cache keys
+     */
+    public static TemplateModel create(Raster template, byte[] fingerprint) {
+        int[] pixels = template.getPixels();
+        int averageColor = PixelKernels.averageColor(pixels);
+
+        int averageR = (averageColor >> 16) & 0xFF;
+        int averageG = (averageColor >> 8) & 0xFF;
+        int averageB = averageColor & 0xFF;
+        float templateBrightness = (averageR + averageG + averageB) / 3.0f;
+
+        boolean[] opaqueMask = new boolean[pixels.length];
+        float[] brightnessFactors = new float[pixels.length];
+        int[] luminanceCounts = new int[ColorMapping.TONE_LEVELS];
+        int opaqueCount = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            if ((pixel >>> 24) < ColorConstants.TRANSPARENCY_THRESHOLD) {
+                continue;
+            }
+
+            // ABGR format
+            int r = pixel & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = (pixel >> 16) & 0xFF;
+            float pixelBrightness = (r + g + b) / 3.0f;
+
+            opaqueMask[i] = true;
+            brightnessFactors[i] = templateBrightness > 0 ? pixelBrightness / templateBrightness : 1.0f;
+            luminanceCounts[ColorMapping.luminance(r, g, b)]++;
+            opaqueCount++;
+        }
+
+        // Each luminance takes the tone level at the middle of its percentile range
+        int[] levelByLuminance = new int[ColorMapping.TONE_LEVELS];
+        long below = 0;
+        for (int luminance = 0; luminance < ColorMapping.TONE_LEVELS; luminance++) {
+            int count = luminanceCounts[luminance];
+            if (count > 0) {
+                levelByLuminance[luminance] = (int) ((2 * below + count) * ColorMapping.TONE_LEVELS / (2L * opaqueCount));
+                below += count;
+            }
+        }
+
+        byte[] toneLevels = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            if (opaqueMask[i]) {
+                int pixel = pixels[i];
+                toneLevels[i] = (byte) levelByLuminance[ColorMapping.luminance(pixel & 0xFF, (pixel >> 8) & 0xFF, (pixel >> 16) & 0xFF)];
+            }
+        }
+
+        return new TemplateModel(template.getWidth(), template.getHeight(), fingerprint, pixels, opaqueMask, brightnessFactors, toneLevels, averageColor);
+    }
+
+    /**
+     * Recolor the template with the given mapping, preserving its brightness variation.
+     *
+     * @param mapping Target color parameters
+     * @return A new raster with the same dimensions as the template
+     */
+    public Raster recolor(ColorMapping mapping) {
+        int[] result = new int[pixels.length];
+        if (mapping.gradient != null) {
+            PixelKernels.recolorGradient(pixels, opaqueMask, toneLevels, mapping.gradient, result);
+        } else {
+            PixelKernels.recolor(pixels, opaqueMask, brightnessFactors, mapping.targetR, mapping.targetG, mapping.targetB, result);
+        }
+        return new Raster(width, height, result);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Hash of the template's encoded bytes, used as part of cache keys.
+     */
+    public byte[] getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Average color of the template's opaque pixels in ARGB format.
+     */
+    public int getAverageColor() {
+        return averageColor;
+    }
+}
@@ -1,5 +1,7 @@
 package com.tfcautoingots.util;
 
+import com.tfcautoingots.texture.core.ColorConstants;
+
 import net.minecraft.resources.ResourceLocation;
 
 /**
@@ -9,14 +11,17 @@ public final class Constants {
     private Constants() {}
 
     /** Default gray color used when color extraction fails */
-    public static final int DEFAULT_COLOR = 0xFFAAAAAA;
+    public static final int DEFAULT_COLOR = ColorConstants.DEFAULT_COLOR;
 
     /** Transparency threshold for pixel processing (0-255) */
-    public static final int TRANSPARENCY_THRESHOLD = 128;
+    public static final int TRANSPARENCY_THRESHOLD = ColorConstants.TRANSPARENCY_THRESHOLD;
 
     /** Resource pack format version */
     public static final int PACK_FORMAT = 34;
 
+    /** Id of the dynamic resource pack holding generated textures */
+    public static final String GENERATED_PACK_ID = "tfcautoingots_generated";
+
     /** Template texture location from mod resources */
     public static final ResourceLocation TEMPLATE_TEXTURE = ResourceLocation.fromNamespaceAndPath("tfcautoingots", "textures/block/metal/smooth/template.png");
 
@@ -28,5 +33,14 @@ public final class Constants {
 
     /** Path prefix for ingot pile textures */
     public static final String TEXTURE_PATH_PREFIX = "textures/block/metal/smooth/";
+
+    /** Directory holding item textures in every namespace */
+    public static final String ITEM_TEXTURE_DIRECTORY = "textures/item";
+
+    /** Directory under the game directory holding cached generated textures */
+    public static final String CACHE_DIRECTORY = "tfcautoingots/cache";
+
+    /** Version of the recolor algorithm, part of every cache key. Bump whenever generated output changes. */
+    public static final int RECOLOR_ALGORITHM_VERSION = 3;
 }
 
@@ -1,92 +1,185 @@
 package com.tfcautoingots.util;
 
+import com.tfcautoingots.metrics.PipelineMetrics;
+import com.tfcautoingots.texture.core.MetalNames;
+
+import net.minecraft.core.Holder;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.tags.ItemTags;
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.item.Item;
-import net.minecraft.world.item.ItemStack;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Utility to extract metal names from ingot items and generate texture paths.
  */
 public class TagExtractor {
     private static final TagKey<Item> C_INGOTS = ItemTags.create(ResourceLocation.fromNamespaceAndPath("c", "ingots"));
-    private static final Pattern INGOT_PATTERN = Pattern.compile("(?:(.+)_ingot|ingot_(.+))");
+    private static final String INGOT = "ingot";
+    private static volatile long lastDiscoveryNanos;
+    private static volatile int lastCandidateCount;
+    /** Metal name of every candidate item from the last discovery, with NOT_A_METAL for candidates that aren't one */
+    private static volatile Map<Item, String> metalIndex;
+    private static final String NOT_A_METAL = "";
+    private static final ItemRegistry<Item> BUILT_IN = new ItemRegistry<>() {
+        @Override
+        public Iterable<Item> getTaggedIngots() {
+            List<Item> items = new ArrayList<>();
+            for (Holder<Item> holder : BuiltInRegistries.ITEM.getTagOrEmpty(C_INGOTS)) {
+                items.add(holder.value());
+            }
+            return items;
+        }
+
+        @Override
+        public Iterable<ResourceLocation> getIds() {
+            return BuiltInRegistries.ITEM.keySet();
+        }
+
+        @Override
+        public Item get(ResourceLocation id) {
+            return BuiltInRegistries.ITEM.get(id);
+        }
+
+        @Override
+        public ResourceLocation getId(Item item) {
+            return BuiltInRegistries.ITEM.getKey(item);
+        }
+    };
 
     /**
      * Extract metal names from ingot items.
+     * Items in the {@code c:ingots} tag are read straight from the tag's holder set. The rest of the registry is only
+     * checked by id with an allocation-free substring prefilter, so the metal name regex runs on likely candidates alone.
+     * Item tags are bound once a world loads; before that, the name check finds everything.
      * Returns a map of metal name -> representative ingot item.
      */
     public static Map<String, Item> extractMetalNames() {
-        Map<String, Item> metalToIngot = new HashMap<>();
-
-        for (Item item : BuiltInRegistries.ITEM) {
-            ResourceLocation itemId = BuiltInRegistries.ITEM.getKey(item);
-            String path = itemId.getPath();
-            
-            // Check if this is an ingot (by tag or by name)
-            boolean isIngot = new ItemStack(item).is(C_INGOTS) || path.contains("ingot");
-            
-            if (isIngot) {
-                String metalName = extractMetalNameFromId(path);
-                
-                if (metalName != null && !metalName.isEmpty()) {
-                    // Skip TFC's own ingots - they already have textures
-                    if (itemId.getNamespace().equals("tfc")) {
-                        continue;
-                    }
-                    
-                    if (!metalToIngot.containsKey(metalName)) {
-                        metalToIngot.put(metalName, item);
-                    }
-                }
-            }
+        try (PipelineMetrics.Timer timer = PipelineMetrics.time(PipelineMetrics.Stage.DISCOVERY)) {
+            long startTime = System.nanoTime();
+            Map<Item, String> index = new IdentityHashMap<>();
+            Map<String, Item> metalToIngot = discoverMetals(BUILT_IN, index);
+            metalIndex = Collections.unmodifiableMap(index);
+            lastDiscoveryNanos = System.nanoTime() - startTime;
+            lastCandidateCount = index.size();
+            return metalToIngot;
+        }
+    }
+
+    /**
+     * Discovery over any item registry, see {@link #extractMetalNames()}.
+     *
+     * @param index Filled with every candidate item considered, each once, mapped to its metal name or to an empty
+     *              string if it doesn't name one
+     * @return Metal name -> representative ingot item
+     */
+    public static <T> Map<String, T> discoverMetals(ItemRegistry<T> registry, Map<T, String> index) {
+        Map<String, T> metalToIngot = new HashMap<>();
+        for (T item : registry.getTaggedIngots()) {
+            addCandidate(metalToIngot, index, registry.getId(item), item);
         }
 
+        for (ResourceLocation itemId : registry.getIds()) {
+            if (itemId.getPath().indexOf(INGOT) < 0) {
+                continue;
+            }
+            // Tagged items with "ingot" in their id were already considered above and are skipped
+            addCandidate(metalToIngot, index, itemId, registry.get(itemId));
+        }
         return metalToIngot;
     }
 
+    /**
+     * Time taken by the last {@link #extractMetalNames()} call, in nanoseconds.
+     */
+    public static long getLastDiscoveryNanos() {
+        return lastDiscoveryNanos;
+    }
+
+    /**
+     * Number of items the last {@link #extractMetalNames()} call ran the metal name match on.
+     */
+    public static int getLastCandidateCount() {
+        return lastCandidateCount;
+    }
+
+    /**
+     * Match an item against the metal name pattern and record the result in the index, unless it was already considered.
+     */
+    private static <T> void addCandidate(Map<String, T> metalToIngot, Map<T, String> index, ResourceLocation itemId, T item) {
+        if (index.containsKey(item)) {
+            return;
+        }
+
+        // Skip TFC's own ingots - they already have textures
+        String metalName = itemId.getNamespace().equals(Constants.TFC_NAMESPACE) ? null : extractMetalNameFromId(itemId.getPath());
+        if (metalName != null && !metalName.isEmpty()) {
+            metalToIngot.putIfAbsent(metalName, item);
+            index.put(item, metalName);
+        } else {
+            index.put(item, NOT_A_METAL);
+        }
+    }
+
     /**
      * Extract metal name from item ID path (e.g., lead_ingot -> lead).
      */
     public static String extractMetalNameFromId(String path) {
-        Matcher matcher = INGOT_PATTERN.matcher(path);
-        if (matcher.find()) {
-            String metalName = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
-            
-            if (metalName != null) {
-                // Handle common prefixes
-                if (metalName.startsWith("double_")) {
-                    metalName = metalName.substring(7);
-                }
-                if (metalName.startsWith("raw_")) {
-                    metalName = metalName.substring(4);
-                }
-                return metalName;
-            }
-        }
-        return null;
+        return MetalNames.fromItemPath(path);
     }
 
     /**
      * Get the metal name for a specific item.
+     * After discovery this is a single identity map probe; items discovery didn't consider have no "ingot" in their id
+     * and can't name a metal. Before discovery the name is parsed from the item id.
+     *
+     * @return The metal name, or null if the item is not an ingot of a metal this mod generates textures for
      */
     public static String getMetalName(Item item) {
+        Map<Item, String> index = metalIndex;
+        if (index != null) {
+            String metalName = index.get(item);
+            return metalName == null || metalName.isEmpty() ? null : metalName;
+        }
+
         ResourceLocation itemId = BuiltInRegistries.ITEM.getKey(item);
         return extractMetalNameFromId(itemId.getPath());
     }
 
     /**
-     * Get the resource location for an ingot item's texture.
+     * Get the conventional resource location for an ingot item's texture.
+     * Used when the item's model doesn't name a texture, see {@link com.tfcautoingots.texture.IngotTextureResolver}.
      */
     public static ResourceLocation getIngotTextureLocation(Item item) {
         ResourceLocation itemId = BuiltInRegistries.ITEM.getKey(item);
-        return ResourceLocation.fromNamespaceAndPath(itemId.getNamespace(), "textures/item/" + itemId.getPath() + ".png");
+        return ResourceLocation.fromNamespaceAndPath(itemId.getNamespace(), Constants.ITEM_TEXTURE_DIRECTORY + "/" + itemId.getPath() + ".png");
+    }
+
+    /**
+     * Read access to an item registry, so discovery can also run over a synthetic registry outside the game.
+     *
+     * @param <T> Item type
+     */
+    public interface ItemRegistry<T> {
+        /**
+         * Items in the {@code c:ingots} tag.
+         */
+        Iterable<T> getTaggedIngots();
+
+        /**
+         * Ids of every registered item.
+         */
+        Iterable<ResourceLocation> getIds();
+
+        T get(ResourceLocation id);
+
+        ResourceLocation getId(T item);
     }
 }
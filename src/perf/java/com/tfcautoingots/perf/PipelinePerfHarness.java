@@ -0,0 +1,320 @@
+package com.tfcautoingots.perf;
+
+import com.tfcautoingots.client.DynamicIngotTexturePack;
+import com.tfcautoingots.client.TextureArchive;
+import com.tfcautoingots.client.TextureGenerationHandler;
+import com.tfcautoingots.texture.IngotTextureGenerator;
+import com.tfcautoingots.texture.TextureVariant;
+import com.tfcautoingots.texture.core.PngDecoder;
+import com.tfcautoingots.texture.core.RecolorMode;
+import com.tfcautoingots.util.Constants;
+import com.tfcautoingots.util.TagExtractor;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.resources.IoSupplier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless run of the whole texture pipeline on a {@link SyntheticModpack}: discovery with
+ * {@link TagExtractor#discoverMetals} over the modpack's registry, the reload's generation batch
+ * {@link TextureGenerationHandler#generateBatch} against a {@link SyntheticResourceManager}, and serving every texture
+ * back through {@link DynamicIngotTexturePack} the way atlases and model loading read it.
+ * <p>
+ * Only the game's services are substituted: textures are decoded with {@link PngDecoder} since STB needs the game's
+ * natives, ingot textures are read from their conventional location since item models need the game's registries, and
+ * the texture archive lives in an empty temporary directory. Every run starts cold, without templates, palettes or
+ * textures of the previous run, so every run generates every texture.
+ * Wall time and allocation are the median of the measured iterations, peak heap the highest use across them. The results
+ * are compared with a baseline file and the process exits with status 1 if any metric regressed beyond its tolerance, if
+ * the baseline is missing or if it was recorded for another scenario. {@code --update-baseline} records the baseline instead.
+ * Times depend on the machine, so the baseline is only meaningful on the machine it was recorded on; CI records it from
+ * the base commit in the same job.
+ *
+ * <pre>
+ * PipelinePerfHarness --baseline &lt;file&gt; [--report &lt;file&gt;] [--update-baseline] [--metals 3000]
+ *     [--mode flat|gradient] [--warmup 2] [--iterations 5] [--time-tolerance 0.5] [--memory-tolerance 0.2]
+ * </pre>
+ */
+public class PipelinePerfHarness {
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        Path baselinePath = null;
+        Path reportPath = null;
+        boolean updateBaseline = false;
+        int metalCount = 3000;
+        RecolorMode mode = RecolorMode.FLAT;
+        int warmup = 2;
+        int iterations = 5;
+        double timeTolerance = 0.5;
+        double memoryTolerance = 0.2;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--baseline" -> baselinePath = Path.of(args[++i]);
+                case "--report" -> reportPath = Path.of(args[++i]);
+                case "--update-baseline" -> updateBaseline = true;
+                case "--metals" -> metalCount = Integer.parseInt(args[++i]);
+                case "--mode" -> mode = RecolorMode.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--time-tolerance" -> timeTolerance = Double.parseDouble(args[++i]);
+                case "--memory-tolerance" -> memoryTolerance = Double.parseDouble(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+        if (baselinePath == null) {
+            System.err.println("Usage: PipelinePerfHarness --baseline <file> [--report <file>] [--update-baseline] [--metals <n>] "
+                + "[--mode flat|gradient] [--warmup <n>] [--iterations <n>] [--time-tolerance <fraction>] [--memory-tolerance <fraction>]");
+            System.exit(2);
+            return;
+        }
+
+        SyntheticModpack modpack = SyntheticModpack.generate(metalCount, SEED);
+        System.out.printf("Synthetic modpack: %d items, %d metals, %d ingots without a texture%n",
+            modpack.getItemCount(), metalCount, modpack.getMissingTextures());
+
+        TextureArchive.useDirectory(Files.createTempDirectory("tfcautoingots-perf"));
+        IngotTextureGenerator.useDecoder((pngBytes, metalName) -> PngDecoder.decode(pngBytes));
+
+        PipelinePerfHarness harness = new PipelinePerfHarness(modpack, mode);
+        for (int i = 0; i < warmup; i++) {
+            harness.runOnce();
+        }
+
+        resetPeakHeap();
+        List<Map<String, Long>> runs = new ArrayList<>();
+        for (int i = 0; i < iterations; i++) {
+            runs.add(harness.runOnce());
+        }
+        Map<String, Long> results = summarize(runs);
+        results.put("peakHeap.kb", getPeakHeap() / 1024);
+        results.put("held.kb", DynamicIngotTexturePack.getHeldBytes() / 1024);
+
+        String scenario = "metals=" + metalCount + ",mode=" + mode.name().toLowerCase(Locale.ROOT);
+        results.forEach((metric, value) -> System.out.printf("  %-14s %,d%n", metric, value));
+        if (reportPath != null) {
+            store(reportPath, scenario, results);
+        }
+
+        if (updateBaseline) {
+            store(baselinePath, scenario, results);
+            System.out.println("Recorded baseline in " + baselinePath);
+            return;
+        }
+        if (!Files.exists(baselinePath)) {
+            System.out.println("No baseline at " + baselinePath + "; record one with --update-baseline");
+            System.exit(1);
+        }
+
+        if (!compare(load(baselinePath), scenario, results, timeTolerance, memoryTolerance)) {
+            System.exit(1);
+        }
+    }
+
+    private final SyntheticModpack modpack;
+    private final SyntheticResourceManager resources;
+    private final RecolorMode mode;
+
+    private PipelinePerfHarness(SyntheticModpack modpack, RecolorMode mode) {
+        this.modpack = modpack;
+        this.resources = new SyntheticResourceManager(modpack);
+        this.mode = mode;
+    }
+
+    /**
+     * One full pass over the modpack, as after a resource reload.
+     *
+     * @return Metric name -> value for this pass
+     */
+    private Map<String, Long> runOnce() throws Exception {
+        IngotTextureGenerator.invalidateTemplate();
+        IngotTextureGenerator.clearPalettes();
+        DynamicIngotTexturePack.clearTextures();
+        System.gc();
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+
+        Map<String, ResourceLocation> metalToIngot = TagExtractor.discoverMetals(modpack, new HashMap<>());
+        long discovered = System.nanoTime();
+
+        int generatedMetals = TextureGenerationHandler.generateBatch(resources, metalToIngot, this::readIngotTextures, mode, false);
+        long generated = System.nanoTime();
+
+        Set<TextureVariant> variants = IngotTextureGenerator.getTemplateModels(resources).keySet();
+        long servedBytes = serve(metalToIngot.keySet(), variants);
+        long served = System.nanoTime();
+
+        int textureCount = DynamicIngotTexturePack.getTextureCount();
+        if (generatedMetals != metalToIngot.size() || textureCount != metalToIngot.size() * variants.size() || servedBytes == 0) {
+            throw new IllegalStateException("Pipeline produced " + textureCount + " textures for " + generatedMetals + " of " + metalToIngot.size() + " metals");
+        }
+
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("discovery.us", (discovered - start) / 1_000);
+        metrics.put("generate.us", (generated - discovered) / 1_000);
+        metrics.put("serve.us", (served - generated) / 1_000);
+        metrics.put("total.us", (served - start) / 1_000);
+        metrics.put("allocated.kb", (getAllocatedBytes() - allocatedBefore) / 1024);
+        return metrics;
+    }
+
+    /**
+     * Read the textures of ingots in one batch, standing in for {@link IngotTextureGenerator#prefetchIngotTextures}.
+     */
+    private Map<ResourceLocation, byte[]> readIngotTextures(Collection<ResourceLocation> ingots, ForkJoinPool pool) {
+        Set<ResourceLocation> locations = new HashSet<>();
+        ingots.forEach(ingot -> locations.add(SyntheticModpack.textureLocation(ingot)));
+        Map<ResourceLocation, byte[]> found = IngotTextureGenerator.readTextures(resources, locations, pool);
+
+        Map<ResourceLocation, byte[]> textures = new HashMap<>();
+        for (ResourceLocation ingot : ingots) {
+            byte[] bytes = found.get(SyntheticModpack.textureLocation(ingot));
+            if (bytes != null) {
+                textures.put(ingot, bytes);
+            }
+        }
+        return textures;
+    }
+
+    /**
+     * Read every texture through the pack: once by directory listing, as atlases do, and once by direct lookup.
+     *
+     * @return Total bytes read
+     */
+    private static long serve(Iterable<String> metals, Iterable<TextureVariant> variants) throws IOException {
+        DynamicIngotTexturePack pack = new DynamicIngotTexturePack(null);
+        AtomicLong total = new AtomicLong();
+        List<IoSupplier<InputStream>> listed = new ArrayList<>();
+        pack.listResources(PackType.CLIENT_RESOURCES, Constants.TFC_NAMESPACE, "textures/block", (location, supplier) -> listed.add(supplier));
+        for (IoSupplier<InputStream> supplier : listed) {
+            total.addAndGet(readFully(supplier));
+        }
+
+        for (String metal : metals) {
+            for (TextureVariant variant : variants) {
+                IoSupplier<InputStream> supplier = pack.getResource(PackType.CLIENT_RESOURCES,
+                    ResourceLocation.fromNamespaceAndPath(Constants.TFC_NAMESPACE, variant.getPath(metal)));
+                if (supplier == null) {
+                    throw new IllegalStateException("Texture of '" + metal + "' is not served");
+                }
+                total.addAndGet(readFully(supplier));
+            }
+        }
+        return total.get();
+    }
+
+    private static long readFully(IoSupplier<InputStream> supplier) throws IOException {
+        try (InputStream stream = supplier.get()) {
+            return stream.readAllBytes().length;
+        }
+    }
+
+    /**
+     * Median of each metric over the measured runs.
+     */
+    private static Map<String, Long> summarize(List<Map<String, Long>> runs) {
+        Map<String, Long> summary = new LinkedHashMap<>();
+        for (String metric : runs.get(0).keySet()) {
+            long[] values = runs.stream().mapToLong(run -> run.get(metric)).toArray();
+            Arrays.sort(values);
+            summary.put(metric, values[values.length / 2]);
+        }
+        return summary;
+    }
+
+    /**
+     * Check every metric against its baseline. Times (".us") use the time tolerance, everything else the memory tolerance.
+     *
+     * @return Whether the baseline is for this scenario and no metric regressed
+     */
+    private static boolean compare(Properties baseline, String scenario, Map<String, Long> results, double timeTolerance, double memoryTolerance) {
+        if (!scenario.equals(baseline.getProperty("scenario"))) {
+            System.out.println("Baseline was recorded for " + baseline.getProperty("scenario") + ", not " + scenario
+                + "; record it again with --update-baseline");
+            return false;
+        }
+
+        boolean passed = true;
+        for (Map.Entry<String, Long> result : results.entrySet()) {
+            String expected = baseline.getProperty(result.getKey());
+            if (expected == null) {
+                continue;
+            }
+
+            long limit = Long.parseLong(expected);
+            double tolerance = result.getKey().endsWith(".us") ? timeTolerance : memoryTolerance;
+            long allowed = (long) (limit * (1 + tolerance));
+            if (result.getValue() > allowed) {
+                System.out.printf("REGRESSION %s: %,d > %,d (baseline %,d + %.0f%%)%n", result.getKey(), result.getValue(), allowed, limit, tolerance * 100);
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "No regressions against the baseline" : "Performance regressed, see above");
+        return passed;
+    }
+
+    private static Properties load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static void store(Path path, String scenario, Map<String, Long> results) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("scenario", scenario);
+        results.forEach((metric, value) -> properties.setProperty(metric, Long.toString(value)));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (OutputStream output = Files.newOutputStream(path)) {
+            properties.store(output, "TFC AutoIngots pipeline performance, see PipelinePerfHarness");
+        }
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long getPeakHeap() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+}
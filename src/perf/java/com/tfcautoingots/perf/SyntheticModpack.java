@@ -0,0 +1,182 @@
+package com.tfcautoingots.perf;
+
+import com.tfcautoingots.texture.TextureVariant;
+import com.tfcautoingots.texture.core.PngEncoder;
+import com.tfcautoingots.texture.core.Raster;
+import com.tfcautoingots.util.Constants;
+import com.tfcautoingots.util.TagExtractor;
+
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic stand-in for a large modpack: an item registry and the textures its resource packs provide.
+ * Items are represented by their ids, so discovery runs without the game's registries.
+ * Besides one ingot per metal it contains the awkward cases discovery and lookup meet in real packs: the same metal
+ * from several mods, ingot names with prefixes, TFC's own ingots, ingots missing from the {@code c:ingots} tag,
+ * non-ingot items of every metal, ingots without a texture and high resolution textures. Texture directories also hold
+ * the textures of non-ingot items and blocks, several times more than the ingots, as texture listings in real packs do.
+ */
+final class SyntheticModpack implements TagExtractor.ItemRegistry<ResourceLocation> {
+    private static final int MOD_COUNT = 40;
+    /** Item textures of each mod unrelated to metals, such as tools and food */
+    private static final int UNRELATED_TEXTURES_PER_MOD = 200;
+
+    /** Item ids in registration order, like the registry's key set */
+    private final List<ResourceLocation> itemIds;
+    /** Items in the {@code c:ingots} tag */
+    private final List<ResourceLocation> taggedIngots;
+    /** Texture location -> encoded PNG, like the resource packs */
+    private final Map<ResourceLocation, byte[]> textures;
+    private final int missingTextures;
+
+    private SyntheticModpack(List<ResourceLocation> itemIds, List<ResourceLocation> taggedIngots, Map<ResourceLocation, byte[]> textures,
+                             int missingTextures) {
+        this.itemIds = itemIds;
+        this.taggedIngots = taggedIngots;
+        this.textures = textures;
+        this.missingTextures = missingTextures;
+    }
+
+    /**
+     * Build a modpack with the given number of distinct metals.
+     */
+    static SyntheticModpack generate(int metalCount, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<ResourceLocation> itemIds = new ArrayList<>();
+        List<ResourceLocation> taggedIngots = new ArrayList<>();
+        Map<ResourceLocation, byte[]> textures = new HashMap<>();
+        int missingTextures = 0;
+
+        for (TextureVariant variant : TextureVariant.ALL) {
+            textures.put(variant.getTemplate(), PngEncoder.encode(ingotTexture(16, random)));
+        }
+        // Only ingot textures are read, so every other texture shares one array
+        byte[] otherTexture = PngEncoder.encode(ingotTexture(16, random));
+        for (int mod = 0; mod < MOD_COUNT; mod++) {
+            for (int item = 0; item < UNRELATED_TEXTURES_PER_MOD; item++) {
+                textures.put(textureLocation(ResourceLocation.fromNamespaceAndPath("mod" + mod, "item" + item)), otherTexture);
+            }
+        }
+
+        for (int metal = 0; metal < metalCount; metal++) {
+            String metalName = "metal" + metal;
+            String namespace = "mod" + (metal % MOD_COUNT);
+
+            // Every metal has an ingot, most of them tagged; one in twenty ships without its texture
+            ResourceLocation ingot = ResourceLocation.fromNamespaceAndPath(namespace, metalName + "_ingot");
+            itemIds.add(ingot);
+            if (random.nextInt(5) != 0) {
+                taggedIngots.add(ingot);
+            }
+            if (random.nextInt(20) == 0) {
+                missingTextures++;
+            } else {
+                int size = random.nextInt(10) == 0 ? 64 : 16;
+                textures.put(textureLocation(ingot), PngEncoder.encode(ingotTexture(size, random)));
+            }
+
+            // One in ten metals is also added by a second mod under another name shape, which discovery must collapse
+            if (random.nextInt(10) == 0) {
+                ResourceLocation duplicate = ResourceLocation.fromNamespaceAndPath("mod" + ((metal + 1) % MOD_COUNT),
+                    random.nextBoolean() ? "ingot_" + metalName : "double_" + metalName + "_ingot");
+                itemIds.add(duplicate);
+                taggedIngots.add(duplicate);
+                textures.put(textureLocation(duplicate), PngEncoder.encode(ingotTexture(16, random)));
+            }
+
+            // Items that only look related, and TFC's own ingots, which must be skipped
+            for (String suffix : new String[] {"_nugget", "_plate", "_block"}) {
+                ResourceLocation item = ResourceLocation.fromNamespaceAndPath(namespace, metalName + suffix);
+                itemIds.add(item);
+                textures.put(textureLocation(item), otherTexture);
+            }
+            textures.put(ResourceLocation.fromNamespaceAndPath(namespace, "textures/block/" + metalName + "_block.png"), otherTexture);
+            if (metal % 50 == 0) {
+                ResourceLocation tfcIngot = ResourceLocation.fromNamespaceAndPath(Constants.TFC_NAMESPACE, "metal/ingot/" + metalName);
+                itemIds.add(tfcIngot);
+                taggedIngots.add(tfcIngot);
+                itemIds.add(ResourceLocation.fromNamespaceAndPath(Constants.TFC_NAMESPACE, metalName + "_ingot"));
+            }
+        }
+
+        // Registries are not sorted by mod
+        Collections.shuffle(itemIds, random);
+        return new SyntheticModpack(Collections.unmodifiableList(itemIds), Collections.unmodifiableList(taggedIngots), textures, missingTextures);
+    }
+
+    @Override
+    public Iterable<ResourceLocation> getTaggedIngots() {
+        return taggedIngots;
+    }
+
+    @Override
+    public Iterable<ResourceLocation> getIds() {
+        return itemIds;
+    }
+
+    @Override
+    public ResourceLocation get(ResourceLocation id) {
+        return id;
+    }
+
+    @Override
+    public ResourceLocation getId(ResourceLocation item) {
+        return item;
+    }
+
+    int getItemCount() {
+        return itemIds.size();
+    }
+
+    int getMissingTextures() {
+        return missingTextures;
+    }
+
+    /**
+     * Every texture the modpack's resource packs provide.
+     */
+    Map<ResourceLocation, byte[]> getTextures() {
+        return Collections.unmodifiableMap(textures);
+    }
+
+    /**
+     * Conventional texture location of an item, like {@code TagExtractor#getIngotTextureLocation}.
+     */
+    static ResourceLocation textureLocation(ResourceLocation itemId) {
+        return ResourceLocation.fromNamespaceAndPath(itemId.getNamespace(), Constants.ITEM_TEXTURE_DIRECTORY + "/" + itemId.getPath() + ".png");
+    }
+
+    /**
+     * A square texture with a shaded metallic body, a dark outline, a highlight and an anti-aliased transparent border.
+     */
+    static Raster ingotTexture(int size, Random random) {
+        int baseR = 64 + random.nextInt(160);
+        int baseG = 64 + random.nextInt(160);
+        int baseB = 64 + random.nextInt(160);
+        int[] pixels = new int[size * size];
+        int border = Math.max(1, size / 8);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean outside = x < border || y < border || x >= size - border || y >= size - border;
+                boolean outline = x == border || y == border || x == size - border - 1 || y == size - border - 1;
+                boolean highlight = !outline && (x - y) == border;
+                float shade = outline ? 0.35f : highlight ? 1.6f : 0.8f + random.nextFloat() * 0.4f;
+                int alpha = outside ? random.nextInt(160) : 255;
+                int r = Math.min(255, (int) (baseR * shade));
+                int g = Math.min(255, (int) (baseG * shade));
+                int b = Math.min(255, (int) (baseB * shade));
+                // ABGR format
+                pixels[y * size + x] = (alpha << 24) | (b << 16) | (g << 8) | r;
+            }
+        }
+        return new Raster(size, size, pixels);
+    }
+}
@@ -0,0 +1,74 @@
+package com.tfcautoingots.perf;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Resource manager over the textures of a {@link SyntheticModpack}, standing in for the reload's pack stack.
+ * Listings scan every texture like a single pack's directory walk; resources don't belong to a pack.
+ */
+final class SyntheticResourceManager implements ResourceManager {
+    private final Map<ResourceLocation, byte[]> textures;
+
+    SyntheticResourceManager(SyntheticModpack modpack) {
+        this.textures = modpack.getTextures();
+    }
+
+    @Override
+    public Optional<Resource> getResource(ResourceLocation location) {
+        byte[] bytes = textures.get(location);
+        return bytes != null ? Optional.of(resource(bytes)) : Optional.empty();
+    }
+
+    @Override
+    public Set<String> getNamespaces() {
+        Set<String> namespaces = new TreeSet<>();
+        textures.keySet().forEach(location -> namespaces.add(location.getNamespace()));
+        return namespaces;
+    }
+
+    @Override
+    public List<Resource> getResourceStack(ResourceLocation location) {
+        return getResource(location).stream().toList();
+    }
+
+    @Override
+    public Map<ResourceLocation, Resource> listResources(String path, Predicate<ResourceLocation> filter) {
+        String directory = path.endsWith("/") ? path : path + "/";
+        Map<ResourceLocation, Resource> resources = new HashMap<>();
+        for (Map.Entry<ResourceLocation, byte[]> texture : textures.entrySet()) {
+            if (texture.getKey().getPath().startsWith(directory) && filter.test(texture.getKey())) {
+                resources.put(texture.getKey(), resource(texture.getValue()));
+            }
+        }
+        return resources;
+    }
+
+    @Override
+    public Map<ResourceLocation, List<Resource>> listResourceStacks(String path, Predicate<ResourceLocation> filter) {
+        Map<ResourceLocation, List<Resource>> stacks = new HashMap<>();
+        listResources(path, filter).forEach((location, resource) -> stacks.put(location, List.of(resource)));
+        return stacks;
+    }
+
+    @Override
+    public Stream<PackResources> listPacks() {
+        return Stream.empty();
+    }
+
+    private static Resource resource(byte[] bytes) {
+        return new Resource(null, () -> new ByteArrayInputStream(bytes));
+    }
+}
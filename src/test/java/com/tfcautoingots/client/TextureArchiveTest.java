@@ -0,0 +1,149 @@
+package com.tfcautoingots.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextureArchiveTest {
+    private static final String LEAD = "textures/block/metal/smooth/lead.png";
+    private static final String TIN = "textures/block/metal/smooth/tin.png";
+    private static final String LEAD_BLOCK = "textures/block/metal/block/lead.png";
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void useTempDirectory() {
+        TextureArchive.useDirectory(directory);
+    }
+
+    @Test
+    void roundTripsEveryTexture() throws IOException {
+        byte[] shared = {1, 2, 3, 4, 5};
+        byte[] tin = {9, 8, 7};
+        NavigableMap<String, TextureEntry> textures = new TreeMap<>();
+        textures.put(LEAD, TextureEntry.encoded(shared, "lead"));
+        textures.put(LEAD_BLOCK, TextureEntry.encoded(shared, "lead-block"));
+        textures.put(TIN, TextureEntry.encoded(tin, "tin"));
+
+        assertEquals(3, TextureArchive.store(textures).size());
+        reopen();
+
+        assertArrayEquals(shared, read(TextureArchive.lookup(LEAD, "lead")));
+        assertArrayEquals(shared, read(TextureArchive.lookup(LEAD_BLOCK, "lead-block")));
+        assertArrayEquals(tin, read(TextureArchive.lookup(TIN, "tin")));
+        assertNull(TextureArchive.lookup(TIN, "changed"), "A texture with other inputs must not be served");
+        assertNull(TextureArchive.lookup("textures/block/metal/smooth/zinc.png", "zinc"));
+
+        // Header, index, then the shared texture once and the other one
+        long index = 0;
+        for (Map.Entry<String, TextureEntry> texture : textures.entrySet()) {
+            index += 2 + texture.getKey().length() + 2 + texture.getValue().getFingerprint().length() + 8;
+        }
+        List<Path> archives = archives();
+        assertEquals(1, archives.size());
+        assertEquals(16 + index + shared.length + tin.length, Files.size(archives.get(0)));
+    }
+
+    @Test
+    void skipsWritingUnchangedTextures() throws IOException {
+        NavigableMap<String, TextureEntry> textures = new TreeMap<>();
+        textures.put(LEAD, TextureEntry.encoded(new byte[] {1, 2, 3}, "lead"));
+
+        assertFalse(TextureArchive.store(textures).isEmpty());
+        assertTrue(TextureArchive.store(textures).isEmpty());
+        assertEquals(1, archives().size());
+    }
+
+    @Test
+    void discardsTruncatedArchive() throws IOException {
+        Path file = storeLead();
+        for (long size : new long[] {Files.size(file) - 1, 20, 6}) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+            reopen();
+
+            assertNull(TextureArchive.lookup(LEAD, "lead"), "Truncated to " + size + " bytes");
+            assertFalse(Files.exists(file), "Unreadable archives are deleted");
+            file = storeLead();
+        }
+    }
+
+    @Test
+    void discardsOtherFormatVersion() throws IOException {
+        Path file = storeLead();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 99), 4);
+        }
+        reopen();
+
+        assertNull(TextureArchive.lookup(LEAD, "lead"));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void opensNewestReadableArchiveAndDeletesTheRest() throws IOException {
+        Path newest = storeLead();
+        Path older = directory.resolve("textures-1.bin");
+        Files.copy(newest, older);
+        Path unreadable = directory.resolve("textures-9999999999999.bin");
+        Files.write(unreadable, new byte[] {1, 2, 3});
+        Path legacy = directory.resolve("lead.png");
+        Files.write(legacy, new byte[] {4, 5, 6});
+        reopen();
+
+        assertNotNull(TextureArchive.lookup(LEAD, "lead"));
+        assertEquals(List.of(newest), archives());
+        assertFalse(Files.exists(legacy), "Files of the old per-texture cache are deleted");
+    }
+
+    private Path storeLead() throws IOException {
+        NavigableMap<String, TextureEntry> textures = new TreeMap<>();
+        textures.put(LEAD, TextureEntry.encoded(new byte[] {1, 2, 3, 4}, "lead"));
+        TextureArchive.store(textures);
+        List<Path> archives = archives();
+        assertEquals(1, archives.size());
+        return archives.get(0);
+    }
+
+    /**
+     * Drop the mapped archive so the next lookup opens the directory again, as on the next launch.
+     */
+    private void reopen() {
+        TextureArchive.useDirectory(directory);
+    }
+
+    private List<Path> archives() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] read(TextureEntry entry) throws IOException {
+        assertNotNull(entry);
+        ByteBuffer bytes = entry.getBytes().duplicate();
+        byte[] result = new byte[bytes.remaining()];
+        bytes.get(result);
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package com.tfcautoingots.texture;
+
+import com.tfcautoingots.texture.core.PngDecoder;
+import com.tfcautoingots.texture.core.PngEncoder;
+import com.tfcautoingots.texture.core.Raster;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * {@link PngDecoder} must give the pixels STB gives in game, or prebaked textures won't match generated ones.
+ */
+class PngDecoderTest {
+    private static final int GRAY = 0;
+    private static final int RGB = 2;
+    private static final int GRAY_ALPHA = 4;
+
+    @Test
+    void grayIsNotColorManaged() throws IOException {
+        byte[] png = png(GRAY, 8, new int[] {0, 128, 255, 37});
+
+        assertArrayEquals(new int[] {0xFF000000, 0xFF808080, 0xFFFFFFFF, 0xFF252525}, PngDecoder.decode(png).getPixels());
+    }
+
+    @Test
+    void grayAlphaKeepsAlpha() throws IOException {
+        byte[] png = png(GRAY_ALPHA, 8, new int[] {128, 255, 200, 0, 10, 64, 0, 128});
+
+        assertArrayEquals(new int[] {0xFF808080, 0x00C8C8C8, 0x400A0A0A, 0x80000000}, PngDecoder.decode(png).getPixels());
+    }
+
+    @Test
+    void sixteenBitSamplesKeepTheirHighByte() throws IOException {
+        byte[] png = png(GRAY, 16, new int[] {0x80FF, 0x0000, 0xFFFF, 0x1234});
+
+        assertArrayEquals(new int[] {0xFF808080, 0xFF000000, 0xFFFFFFFF, 0xFF121212}, PngDecoder.decode(png).getPixels());
+    }
+
+    @Test
+    void rgbIsOpaque() throws IOException {
+        byte[] png = png(RGB, 8, new int[] {0x9a, 0x56, 0x28, 1, 2, 3, 255, 0, 128, 0, 0, 0});
+
+        assertArrayEquals(new int[] {0xFF28569A, 0xFF030201, 0xFF8000FF, 0xFF000000}, PngDecoder.decode(png).getPixels());
+    }
+
+    @Test
+    void rgbaRoundTrips() throws IOException {
+        int[] pixels = {0x00000000, 0x80204060, 0xFF28569A, 0x7FFFFFFF};
+
+        assertArrayEquals(pixels, PngDecoder.decode(PngEncoder.encode(new Raster(2, 2, pixels))).getPixels());
+    }
+
+    @Test
+    void matchesStb() throws IOException {
+        assumeTrue(isStbAvailable(), "STB natives are not loaded");
+
+        byte[][] pngs = {
+            png(GRAY, 8, new int[] {0, 128, 255, 37}),
+            png(GRAY_ALPHA, 8, new int[] {128, 255, 200, 0, 10, 64, 0, 128}),
+            png(GRAY, 16, new int[] {0x80FF, 0x0000, 0xFFFF, 0x1234}),
+            png(RGB, 8, new int[] {0x9a, 0x56, 0x28, 1, 2, 3, 255, 0, 128, 0, 0, 0})
+        };
+        for (byte[] png : pngs) {
+            assertArrayEquals(NativeMemory.decode(png, null).getPixels(), PngDecoder.decode(png).getPixels());
+        }
+    }
+
+    private static boolean isStbAvailable() {
+        try {
+            NativeMemory.decode(PngEncoder.encode(new Raster(1, 1, new int[1])), null);
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * Encode a 2x2 image of the given PNG color type and bit depth.
+     *
+     * @param samples Samples of every pixel in row order, channels interleaved
+     */
+    private static byte[] png(int colorType, int bitDepth, int[] samples) throws IOException {
+        int channels = switch (colorType) {
+            case GRAY -> 1;
+            case GRAY_ALPHA -> 2;
+            case RGB -> 3;
+            default -> throw new IllegalArgumentException("Color type " + colorType);
+        };
+        int size = 2;
+        int bytesPerSample = bitDepth / 8;
+
+        ByteArrayOutputStream scanlines = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(scanlines)) {
+            for (int y = 0; y < size; y++) {
+                deflater.write(0);
+                for (int i = 0; i < size * channels; i++) {
+                    int sample = samples[y * size * channels + i];
+                    if (bytesPerSample == 2) {
+                        deflater.write(sample >> 8);
+                    }
+                    deflater.write(sample);
+                }
+            }
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(size);
+        headerData.writeInt(size);
+        headerData.write(new byte[] {(byte) bitDepth, (byte) colorType, 0, 0, 0});
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(png);
+        output.write(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        chunk(output, "IHDR", header.toByteArray());
+        chunk(output, "IDAT", scanlines.toByteArray());
+        chunk(output, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    private static void chunk(DataOutputStream output, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        output.writeInt(data.length);
+        output.write(typeBytes);
+        output.write(data);
+        output.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,62 @@
+package com.tfcautoingots.texture.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColorPaletteTest {
+    private static final int SIZE = 16;
+
+    @Test
+    void smoothGradientGivesItsMiddle() {
+        // Copper shading from 9a5628 to f0984e, averaging c5773b
+        int[] pixels = new int[SIZE * SIZE];
+        for (int i = 0; i < pixels.length; i++) {
+            double t = i / (double) (pixels.length - 1);
+            pixels[i] = abgr(lerp(0x9a, 0xf0, t), lerp(0x56, 0x98, t), lerp(0x28, 0x4e, t));
+        }
+
+        assertColor(0xc5773b, ColorPalette.analyze(pixels).getDominantColor());
+    }
+
+    @Test
+    void outlineDoesNotPullBodyColor() {
+        // Shaded copper body averaging b56a36 inside a dark 3a1c0c outline covering about a fifth of the texture
+        int[] pixels = new int[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                boolean outline = x == 0 || x == SIZE - 1 || y == 0 || (y == SIZE - 1 && x < 4);
+                double t = ((x + y) % 9) / 8.0 - 0.5;
+                pixels[y * SIZE + x] = outline ? abgr(0x3a, 0x1c, 0x0c) : abgr(lerp(0xb5, 0xf1, t), lerp(0x6a, 0x92, t), lerp(0x36, 0x4e, t));
+            }
+        }
+
+        assertColor(0xb56a36, ColorPalette.analyze(pixels).getDominantColor());
+    }
+
+    @Test
+    void transparentTextureGivesDefaultColor() {
+        assertEquals(ColorConstants.DEFAULT_COLOR, ColorPalette.analyze(new int[SIZE * SIZE]).getDominantColor());
+    }
+
+    /**
+     * Assert an ARGB color matches the expected RGB within histogram rounding.
+     */
+    private static void assertColor(int expectedRgb, int actualArgb) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int expected = (expectedRgb >> shift) & 0xFF;
+            int actual = (actualArgb >> shift) & 0xFF;
+            assertTrue(Math.abs(expected - actual) <= 2,
+                String.format("Expected %06x but was %06x", expectedRgb, actualArgb & 0xFFFFFF));
+        }
+    }
+
+    private static int abgr(int r, int g, int b) {
+        return 0xFF000000 | (b << 16) | (g << 8) | r;
+    }
+
+    private static int lerp(int from, int to, double t) {
+        return (int) Math.round(from + (to - from) * t);
+    }
+}
@@ -0,0 +1,94 @@
+package com.tfcautoingots.texture.core;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link PixelKernels}. Only instantiated when {@code jdk.incubator.vector} is present.
+ * Float-to-int conversion follows Java cast semantics, so the results match the scalar loops exactly.
+ */
+class VectorPixelKernels extends PixelKernels {
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    VectorPixelKernels() {
+        if (INT_SPECIES.length() != FLOAT_SPECIES.length()) {
+            throw new IllegalStateException("Mismatched int and float vector lengths");
+        }
+    }
+
+    @Override
+    int computeAverageColor(int[] pixels) {
+        IntVector sumR = IntVector.zero(INT_SPECIES);
+        IntVector sumG = IntVector.zero(INT_SPECIES);
+        IntVector sumB = IntVector.zero(INT_SPECIES);
+        int pixelCount = 0;
+
+        int i = 0;
+        int upperBound = INT_SPECIES.loopBound(pixels.length);
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            IntVector pixel = IntVector.fromArray(INT_SPECIES, pixels, i);
+            VectorMask<Integer> opaque = pixel.lanewise(VectorOperators.LSHR, 24)
+                .compare(VectorOperators.GE, ColorConstants.TRANSPARENCY_THRESHOLD);
+
+            sumR = sumR.add(pixel.and(0xFF), opaque);
+            sumG = sumG.add(pixel.lanewise(VectorOperators.LSHR, 8).and(0xFF), opaque);
+            sumB = sumB.add(pixel.lanewise(VectorOperators.LSHR, 16).and(0xFF), opaque);
+            pixelCount += opaque.trueCount();
+        }
+
+        int totalR = sumR.reduceLanes(VectorOperators.ADD);
+        int totalG = sumG.reduceLanes(VectorOperators.ADD);
+        int totalB = sumB.reduceLanes(VectorOperators.ADD);
+        for (; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            if ((pixel >>> 24) < ColorConstants.TRANSPARENCY_THRESHOLD) {
+                continue;
+            }
+            totalR += pixel & 0xFF;
+            totalG += (pixel >> 8) & 0xFF;
+            totalB += (pixel >> 16) & 0xFF;
+            pixelCount++;
+        }
+
+        return toAverageColor(totalR, totalG, totalB, pixelCount);
+    }
+
+    @Override
+    void applyRecoloring(int[] templatePixels, boolean[] opaqueMask, float[] brightnessFactors,
+                         int targetR, int targetG, int targetB, int[] result) {
+        int i = 0;
+        int upperBound = INT_SPECIES.loopBound(templatePixels.length);
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            IntVector pixel = IntVector.fromArray(INT_SPECIES, templatePixels, i);
+            VectorMask<Integer> opaque = VectorMask.fromArray(INT_SPECIES, opaqueMask, i);
+            FloatVector brightnessFactor = FloatVector.fromArray(FLOAT_SPECIES, brightnessFactors, i);
+
+            IntVector newR = scaleChannel(brightnessFactor, targetR);
+            IntVector newG = scaleChannel(brightnessFactor, targetG);
+            IntVector newB = scaleChannel(brightnessFactor, targetB);
+
+            IntVector recolored = pixel.and(0xFF000000)
+                .or(newB.lanewise(VectorOperators.LSHL, 16))
+                .or(newG.lanewise(VectorOperators.LSHL, 8))
+                .or(newR);
+            pixel.blend(recolored, opaque).intoArray(result, i);
+        }
+
+        recolorRange(templatePixels, opaqueMask, brightnessFactors, targetR, targetG, targetB, result, i);
+    }
+
+    @Override
+    String getName() {
+        return "vector (" + INT_SPECIES.length() + " lanes)";
+    }
+
+    private static IntVector scaleChannel(FloatVector brightnessFactor, int target) {
+        return ((IntVector) brightnessFactor.mul((float) target).convert(VectorOperators.F2I, 0))
+            .max(0)
+            .min(255);
+    }
+}